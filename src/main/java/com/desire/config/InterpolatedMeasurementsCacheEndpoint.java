@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import com.desire.services.InterpolatedMeasurementsCacheService;
+import com.desire.services.InterpolatedMeasurementsCacheService.Statistics;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Actuator endpoint exposing size, hits and misses of the interpolated measurements cache.
+ */
+@Component
+@Endpoint(id = "interpolationcache")
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class InterpolatedMeasurementsCacheEndpoint {
+
+  private final @NonNull InterpolatedMeasurementsCacheService cacheService;
+
+  @ReadOperation
+  public Statistics statistics() {
+    return cacheService.getStatistics();
+  }
+}
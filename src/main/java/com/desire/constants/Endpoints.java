@@ -44,6 +44,12 @@ public final class Endpoints {
     public static final String ID = "/{campaignId}";
 
     public static final String INTERPOLATED_MEASUREMENTS = ID + "/interpolated-measurements";
+
+    public static final String TILE_STATS = ID + "/tile-stats";
+
+    public static final String HEATMAP_TILES = ID + "/heatmap-tiles/{zoom}/{tileX}/{tileY}";
+
+    public static final String HEATMAP_STREAM = ID + "/heatmap-stream";
   }
 
   @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -59,11 +65,30 @@ public final class Endpoints {
     public static final String COMMANDS_STREAM = COMMANDS + "/stream";
   }
 
+  /**
+   * Reactive alternatives of the event streams.
+   */
+  @NoArgsConstructor(access = AccessLevel.PRIVATE)
+  public static class V2 {
+    public static final String PATH = "/v2";
+
+    public static final String AGV_COMMANDS_STREAM = AGV.PATH + AGV.COMMANDS_STREAM;
+
+    public static final String AGVS_STREAM = AGVs.PATH + AGVs.STREAM;
+
+    /**
+     * Updates of all AGVs of a site.
+     */
+    public static final String SITE_AGVS_STREAM = AGVs.PATH + "/stream";
+  }
+
   @NoArgsConstructor(access = AccessLevel.PRIVATE)
   public static class AGVMeasurements {
     public static final String PATH = "/agv-measurements";
 
     public static final String TAG = "AGV Measurements";
+
+    public static final String STREAM = "/stream";
   }
 
 
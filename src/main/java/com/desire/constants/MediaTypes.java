@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.constants;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Media types of the application besides the standard ones.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MediaTypes {
+
+  /**
+   * Interpolated grid as little-endian binary, see {@link com.desire.utils.InterpolatedGridCodec}.
+   */
+  public static final String GRID = "application/vnd.desire.grid";
+
+  /**
+   * Interpolated grid as JSON with the values as base64 encoded little-endian float arrays.
+   */
+  public static final String GRID_JSON = "application/vnd.desire.grid+json";
+}
@@ -16,26 +16,43 @@
 
 package com.desire.controllers;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.desire.constants.Constraints.Text;
 import com.desire.constants.Endpoints;
 import com.desire.constants.Roles;
+import com.desire.dtos.PostAGVMeasurementBatchResponse;
 import com.desire.dtos.PostAGVMeasurementRequest;
+import com.desire.dtos.PostAGVMeasurementResponse;
 import com.desire.dtos.SearchAGVMeasurementRequest;
 import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.Campaigns;
 import com.desire.services.AGVMeasurementService;
+import com.desire.services.AGVMeasurementValidationService;
 import com.desire.validations.exceptions.ValidationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Pattern;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
@@ -46,7 +63,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class AGVMeasurementsController {
 
+  private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+
   private final @NonNull AGVMeasurementService agvMeasurementService;
+  private final @NonNull AGVMeasurementValidationService measurementValidationService;
+  private final @NonNull ObjectMapper objectMapper;
 
   @RolesAllowed({Roles.COLLECTOR, Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
   @GetMapping
@@ -58,8 +79,36 @@ public class AGVMeasurementsController {
   @Schema(deprecated = true, description = "TEST feature to simulate TUI pulling data")
   @RolesAllowed({Roles.ADMIN, Roles.TECHNICAL_USER})
   @PostMapping
-  public List<AGVMeasurements> post(@RequestBody @Valid PostAGVMeasurementRequest request)
+  public PostAGVMeasurementResponse post(@RequestBody @Valid PostAGVMeasurementRequest request)
       throws ValidationException {
     return agvMeasurementService.post(request);
   }
+
+  @Operation(summary = "Streaming ingestion of AGV measurements",
+      description = "Accepts measurement values as newline-delimited JSON and writes them in "
+          + "batches. Responds with one acknowledgement per written batch, also as "
+          + "newline-delimited JSON.")
+  @ApiResponse(
+      content = @Content(schema = @Schema(implementation = PostAGVMeasurementBatchResponse.class)))
+  @RolesAllowed({Roles.ADMIN, Roles.TECHNICAL_USER})
+  @PostMapping(path = Endpoints.AGVMeasurements.STREAM,
+      consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<StreamingResponseBody> postStream(
+      @RequestParam @Pattern(regexp = Text.Pattern.UUID) String campaignId,
+      InputStream inputStream) throws ValidationException {
+    Campaigns campaign = measurementValidationService.validateIngest(campaignId);
+
+    StreamingResponseBody responseBody = outputStream -> agvMeasurementService.ingest(campaign,
+        inputStream, acknowledgement -> {
+          try {
+            outputStream.write(objectMapper.writeValueAsBytes(acknowledgement));
+            outputStream.write(NEW_LINE);
+            outputStream.flush();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+  }
 }
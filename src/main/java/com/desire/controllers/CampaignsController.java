@@ -16,11 +16,19 @@
 
 package com.desire.controllers;
 
+import com.desire.dtos.GetInterpolatedMeasurementGridResponse;
 import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.dtos.GetMeasurementTileStatsResponse;
+import com.desire.dtos.HeatmapDeltaDto;
 import com.desire.dtos.SearchInterpolatedMeasurementsRequest;
+import com.desire.events.HeatmapStreamService;
+import com.desire.services.AGVMeasurementTileService;
+import com.desire.services.HeatmapTileService;
 import com.desire.services.InterpolatedMeasurementsService;
+import com.desire.services.InterpolatedMeasurementsValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -29,8 +37,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import com.desire.constants.Constraints.Text;
 import com.desire.constants.Endpoints;
+import com.desire.constants.MediaTypes;
 import com.desire.constants.Roles;
 import com.desire.dtos.PatchCampaignRequest;
 import com.desire.dtos.PostCampaignRequest;
@@ -39,7 +49,11 @@ import com.desire.dtos.SearchCampaignRequest.SearchCampaignRequestBuilder;
 import com.desire.model.entities.Campaigns;
 import com.desire.services.CampaignService;
 import com.desire.services.CampaignValidationService;
+import com.desire.utils.InterpolatedGridCodec;
 import com.desire.validations.exceptions.ValidationException;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.validation.Valid;
@@ -57,6 +71,10 @@ public class CampaignsController {
   private final @NonNull CampaignService campaignService;
   private final @NonNull CampaignValidationService campaignValidationService;
   private final @NonNull InterpolatedMeasurementsService interpolatedMeasurementsService;
+  private final @NonNull AGVMeasurementTileService measurementTileService;
+  private final @NonNull HeatmapStreamService heatmapStreamService;
+  private final @NonNull HeatmapTileService heatmapTileService;
+  private final @NonNull InterpolatedMeasurementsValidationService interpolationValidationService;
 
   @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
   @GetMapping
@@ -105,4 +123,81 @@ public class CampaignsController {
       throws ValidationException {
     return interpolatedMeasurementsService.queryInterpolatedMeasurements(campaignId, searchRequest);
   }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(value = Endpoints.Campaigns.INTERPOLATED_MEASUREMENTS,
+      produces = MediaTypes.GRID_JSON)
+  public GetInterpolatedMeasurementGridResponse getInterpolatedMeasurementGridById(
+      @PathVariable String campaignId, @Valid SearchInterpolatedMeasurementsRequest searchRequest)
+      throws ValidationException {
+    return GetInterpolatedMeasurementGridResponse.of(
+        interpolatedMeasurementsService.queryInterpolatedMeasurements(campaignId, searchRequest));
+  }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(value = Endpoints.Campaigns.INTERPOLATED_MEASUREMENTS, produces = MediaTypes.GRID)
+  public byte[] getInterpolatedMeasurementGridBinaryById(@PathVariable String campaignId,
+      @Valid SearchInterpolatedMeasurementsRequest searchRequest) throws ValidationException {
+    return InterpolatedGridCodec.encode(
+        interpolatedMeasurementsService.queryInterpolatedMeasurements(campaignId, searchRequest));
+  }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(Endpoints.Campaigns.TILE_STATS)
+  public GetMeasurementTileStatsResponse getTileStatsById(@PathVariable String campaignId) {
+    Page<Campaigns> campaigns =
+        campaignService.search(SearchCampaignRequest.builder().id(campaignId).build());
+
+    return campaigns.isEmpty() ? new GetMeasurementTileStatsResponse()
+        : measurementTileService.search(campaigns.getContent().get(0));
+  }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(Endpoints.Campaigns.HEATMAP_TILES)
+  public GetInterpolatedMeasurementResponse getHeatmapTileById(@PathVariable String campaignId,
+      @PathVariable int zoom, @PathVariable long tileX, @PathVariable long tileY)
+      throws ValidationException {
+    return getHeatmapTile(campaignId, zoom, tileX, tileY);
+  }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(value = Endpoints.Campaigns.HEATMAP_TILES, produces = MediaTypes.GRID_JSON)
+  public GetInterpolatedMeasurementGridResponse getHeatmapTileGridById(
+      @PathVariable String campaignId, @PathVariable int zoom, @PathVariable long tileX,
+      @PathVariable long tileY) throws ValidationException {
+    return GetInterpolatedMeasurementGridResponse.of(
+        getHeatmapTile(campaignId, zoom, tileX, tileY));
+  }
+
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(value = Endpoints.Campaigns.HEATMAP_TILES, produces = MediaTypes.GRID)
+  public byte[] getHeatmapTileGridBinaryById(@PathVariable String campaignId,
+      @PathVariable int zoom, @PathVariable long tileX, @PathVariable long tileY)
+      throws ValidationException {
+    return InterpolatedGridCodec.encode(getHeatmapTile(campaignId, zoom, tileX, tileY));
+  }
+
+  @ApiResponse(content = @Content(schema = @Schema(implementation = HeatmapDeltaDto.class)))
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(path = Endpoints.Campaigns.HEATMAP_STREAM,
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseBodyEmitter getHeatmapStreamById(@PathVariable String campaignId) {
+    Page<Campaigns> campaigns =
+        campaignService.search(SearchCampaignRequest.builder().id(campaignId).build());
+
+    return campaigns.isEmpty() ? null
+        : heatmapStreamService.subscribe(campaigns.getContent().get(0).getId());
+  }
+
+  private GetInterpolatedMeasurementResponse getHeatmapTile(String campaignId, int zoom,
+      long tileX, long tileY) throws ValidationException {
+    interpolationValidationService.validateHeatmapTile(zoom,
+        heatmapTileService.getLevels());
+
+    Page<Campaigns> campaigns =
+        campaignService.search(SearchCampaignRequest.builder().id(campaignId).build());
+
+    return campaigns.isEmpty() ? new GetInterpolatedMeasurementResponse()
+        : heatmapTileService.get(campaigns.getContent().get(0), zoom, tileX, tileY);
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.controllers;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.desire.constants.Constraints.Text;
+import com.desire.constants.Endpoints;
+import com.desire.constants.Endpoints.AGV;
+import com.desire.constants.Endpoints.AGVs;
+import com.desire.constants.Endpoints.V2;
+import com.desire.constants.Roles;
+import com.desire.dtos.AGVUpdateDto;
+import com.desire.dtos.SearchAGVRequest;
+import com.desire.dtos.SearchCampaignRequest;
+import com.desire.dtos.SiteAGVUpdateDto;
+import com.desire.events.AGVCommandStreamService;
+import com.desire.events.AGVStreamService;
+import com.desire.events.SiteStreamService;
+import com.desire.model.entities.AGVCommands;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Campaigns.Configuration;
+import com.desire.services.AGVService;
+import com.desire.services.CampaignService;
+import com.desire.utils.UserSession;
+import com.desire.validations.Validation;
+import com.desire.validations.codes.SystemErrorCodes;
+import com.desire.validations.exceptions.ValidationException;
+import com.desire.validations.annotations.AGVId;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.security.RolesAllowed;
+import jakarta.validation.constraints.Pattern;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive server-sent event streams, written only as fast as clients read them. Reconnecting
+ * clients receive the events they missed by sending the ID of the last received event.
+ */
+@Validated
+@RestController
+@RequestMapping(Endpoints.V2.PATH)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class EventStreamsController {
+
+  private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+  private final @NonNull AGVCommandStreamService agvCommandStream;
+  private final @NonNull AGVStreamService agvStreamService;
+  private final @NonNull SiteStreamService siteStreamService;
+  private final @NonNull AGVService agvService;
+  private final @NonNull CampaignService campaignService;
+
+  @Tag(name = AGV.TAG)
+  @ApiResponse(content = @Content(schema = @Schema(implementation = AGVCommands.class)))
+  @RolesAllowed(Roles.AGV)
+  @GetMapping(path = V2.AGV_COMMANDS_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<String>> getCommandStream(
+      @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId) {
+    return agvCommandStream.subscribeReactive(UserSession.id(), lastEventId);
+  }
+
+  @Tag(name = AGVs.TAG)
+  @ApiResponse(content = @Content(schema = @Schema(implementation = AGVUpdateDto.class)))
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(path = V2.AGVS_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<String>> getStreamById(
+      @PathVariable @AGVId @Pattern(regexp = Text.Pattern.UUID) String agvId,
+      @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId) {
+    return agvStreamService.subscribeReactive(agvId, lastEventId);
+  }
+
+  @Tag(name = AGVs.TAG)
+  @ApiResponse(content = @Content(schema = @Schema(implementation = SiteAGVUpdateDto.class)))
+  @RolesAllowed({Roles.ANALYST, Roles.OPERATOR, Roles.MANAGER})
+  @GetMapping(path = V2.SITE_AGVS_STREAM, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<String>> getSiteStream(
+      @RequestParam @Pattern(regexp = Text.Pattern.UUID) String siteId,
+      @RequestParam(required = false) @Pattern(regexp = Text.Pattern.UUID) String campaignId,
+      @RequestHeader(name = LAST_EVENT_ID, required = false) Long lastEventId)
+      throws ValidationException {
+    List<String> agvIds = agvService.searchIds(SearchAGVRequest.builder().siteId(siteId).build());
+
+    if (campaignId != null) {
+      Page<Campaigns> campaigns = campaignService
+          .search(SearchCampaignRequest.builder().id(campaignId).siteId(siteId).build());
+
+      if (campaigns.isEmpty()) {
+        Validation validations = new Validation();
+        validations.addError(SystemErrorCodes.RESOURCE_NOT_FOUND, "Campaign not found");
+        throw new ValidationException(validations);
+      }
+
+      List<String> campaignAgvIds = campaigns.getContent().get(0).getConfigurations().stream()
+          .map(Configuration::getAgvId).toList();
+
+      agvIds = agvIds.stream().filter(campaignAgvIds::contains).toList();
+    }
+
+    return siteStreamService.subscribeReactive(UserSession.organizationId(), siteId, campaignId,
+        agvIds, lastEventId);
+  }
+}
@@ -30,10 +30,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import com.desire.constants.Endpoints;
 import com.desire.constants.Endpoints.TUI;
+import com.desire.dtos.GetInterpolatedMeasurementValueResponse;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest.GetInterpolatedMeasurementsGridRequest;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest.GetInterpolatedMeasurementsLocationRequest;
 import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.RandomUtils;
 
 /**
  * Fake TUI controller to test the integration since we have no network connection to their backend
@@ -71,4 +76,37 @@ public class FakeTUIController {
     return new ArrayList<>();
   }
 
+  @Operation(summary = "Fake endpoint to interpolate measurements at a list of locations or a grid")
+  @GetMapping(Endpoints.TUI.INTERPOLATED_MEASUREMENTS_BULK)
+  public List<GetInterpolatedMeasurementValueResponse> getInterpolatedMeasurements(
+      @RequestBody GetInterpolatedMeasurementsRequest request) {
+    List<GetInterpolatedMeasurementValueResponse> values = new ArrayList<>();
+
+    if (request.getGrid() != null) {
+      GetInterpolatedMeasurementsGridRequest grid = request.getGrid();
+
+      for (int i = 0; i < grid.sizeX() * grid.sizeY(); i++) {
+        values.add(createFakeValue(request.getCampaignId(), grid.x(i), grid.y(i)));
+      }
+    } else {
+      for (GetInterpolatedMeasurementsLocationRequest location : request.getLocations()) {
+        values.add(createFakeValue(request.getCampaignId(), location.x(), location.y()));
+      }
+    }
+
+    return values;
+  }
+
+  private GetInterpolatedMeasurementValueResponse createFakeValue(String campaignId, float x,
+      float y) {
+    GetInterpolatedMeasurementValueResponse value = new GetInterpolatedMeasurementValueResponse();
+    value.setCampaignId(campaignId);
+    value.setX(x);
+    value.setY(y);
+    value.setDatarate(RandomUtils.insecure().randomFloat(5f, 300f));
+    value.setLatency(RandomUtils.insecure().randomFloat(1f, 100f));
+
+    return value;
+  }
+
 }
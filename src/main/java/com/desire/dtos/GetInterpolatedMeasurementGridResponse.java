@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.dtos;
+
+import com.desire.model.entities.Coordinates;
+import com.desire.types.InterpolationEngine;
+import com.desire.utils.InterpolatedGridCodec;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * Columnar representation of {@link GetInterpolatedMeasurementResponse}: the grid is described
+ * once, the values are base64 encoded little-endian float arrays ordered by x first.
+ */
+@Data
+public class GetInterpolatedMeasurementGridResponse {
+
+  private float tileResolution;
+
+  private Coordinates minCoordinates;
+
+  private Coordinates maxCoordinates;
+
+  private boolean dataReceived;
+
+  private InterpolationEngine engine;
+
+  private boolean partial;
+
+  private List<GetInterpolatedMeasurementShardResponse> shards;
+
+  private int sizeX;
+
+  private int sizeY;
+
+  private String dataRates;
+
+  private String latencies;
+
+  public static GetInterpolatedMeasurementGridResponse of(
+      GetInterpolatedMeasurementResponse response) {
+    GetInterpolatedMeasurementGridResponse grid = new GetInterpolatedMeasurementGridResponse();
+    grid.setTileResolution(response.getTileResolution());
+    grid.setMinCoordinates(response.getMinCoordinates());
+    grid.setMaxCoordinates(response.getMaxCoordinates());
+    grid.setDataReceived(response.isDataReceived());
+    grid.setEngine(response.getEngine());
+    grid.setPartial(response.isPartial());
+    grid.setShards(response.getShards());
+    grid.setSizeX(response.getSizeX());
+    grid.setSizeY(response.getSizeY());
+    grid.setDataRates(InterpolatedGridCodec.encodeBase64(response.getDataRates()));
+    grid.setLatencies(InterpolatedGridCodec.encodeBase64(response.getLatencies()));
+
+    return grid;
+  }
+}
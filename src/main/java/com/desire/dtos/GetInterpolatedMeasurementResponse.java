@@ -17,10 +17,25 @@
 package com.desire.dtos;
 
 import com.desire.model.entities.Coordinates;
+import com.desire.types.InterpolationEngine;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import lombok.Data;
 
+/**
+ * <p>
+ * Grid of interpolated measurements, starting at the min coordinates with a step of the tile
+ * resolution along both axes.
+ * </p>
+ *
+ * <p>
+ * Values are held as columns of primitive floats ordered by x first, so the location at index
+ * {@code i} is {@code (i / sizeY, i % sizeY)} steps from the min coordinates. The value list is
+ * only built for the JSON representation.
+ * </p>
+ */
 @Data
 public class GetInterpolatedMeasurementResponse {
 
@@ -32,5 +47,115 @@ public class GetInterpolatedMeasurementResponse {
 
   private boolean dataReceived = false;
 
-  private List<GetInterpolatedMeasurementValueResponse> values = new ArrayList<>();
+  /**
+   * Engine which returned the values, empty if no data was received.
+   */
+  private InterpolationEngine engine;
+
+  /**
+   * Whether some shards of the grid returned no data, their values are NaN.
+   */
+  private boolean partial = false;
+
+  /**
+   * Status of the shards requested from TUI, empty for other engines.
+   */
+  private List<GetInterpolatedMeasurementShardResponse> shards = new ArrayList<>();
+
+  /**
+   * Number of grid locations along the x axis.
+   */
+  private int sizeX;
+
+  /**
+   * Number of grid locations along the y axis.
+   */
+  private int sizeY;
+
+  @JsonIgnore
+  private String campaignId;
+
+  /**
+   * Data rates of the grid locations, NaN if no value could be interpolated.
+   */
+  @JsonIgnore
+  private float[] dataRates = new float[0];
+
+  /**
+   * Latencies of the grid locations, NaN if no value could be interpolated.
+   */
+  @JsonIgnore
+  private float[] latencies = new float[0];
+
+  /**
+   * Sets the grid dimensions and resets all values to NaN.
+   */
+  public void initGrid(String campaignId, float tileResolution, Coordinates minCoordinates,
+      Coordinates maxCoordinates, int sizeX, int sizeY) {
+    this.campaignId = campaignId;
+    this.tileResolution = tileResolution;
+    this.minCoordinates = minCoordinates;
+    this.maxCoordinates = maxCoordinates;
+    this.sizeX = sizeX;
+    this.sizeY = sizeY;
+
+    dataRates = new float[sizeX * sizeY];
+    latencies = new float[sizeX * sizeY];
+
+    Arrays.fill(dataRates, Float.NaN);
+    Arrays.fill(latencies, Float.NaN);
+  }
+
+  @JsonIgnore
+  public int getSize() {
+    return dataRates.length;
+  }
+
+  /**
+   * @return X coordinate of the grid location at the given index.
+   */
+  public float getX(int index) {
+    return minCoordinates.getX() + (float) (index / sizeY) * tileResolution;
+  }
+
+  /**
+   * @return Y coordinate of the grid location at the given index.
+   */
+  public float getY(int index) {
+    return minCoordinates.getY() + (float) (index % sizeY) * tileResolution;
+  }
+
+  /**
+   * @return Values of all grid locations, newly built on each call.
+   */
+  public List<GetInterpolatedMeasurementValueResponse> getValues() {
+    List<GetInterpolatedMeasurementValueResponse> values = new ArrayList<>(getSize());
+
+    for (int i = 0; i < getSize(); i++) {
+      GetInterpolatedMeasurementValueResponse value = new GetInterpolatedMeasurementValueResponse();
+      value.setCampaignId(campaignId);
+      value.setX(getX(i));
+      value.setY(getY(i));
+      value.setDatarate(dataRates[i]);
+      value.setLatency(latencies[i]);
+
+      values.add(value);
+    }
+
+    return values;
+  }
+
+  /**
+   * Sets the values of all grid locations in the order of the grid.
+   */
+  public void setValues(List<GetInterpolatedMeasurementValueResponse> values) {
+    dataRates = new float[values.size()];
+    latencies = new float[values.size()];
+
+    for (int i = 0; i < values.size(); i++) {
+      campaignId = values.get(i).getCampaignId();
+      dataRates[i] = values.get(i).getDatarate();
+      latencies[i] = values.get(i).getLatency();
+    }
+  }
 }
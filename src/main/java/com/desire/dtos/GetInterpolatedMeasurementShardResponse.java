@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.dtos;
+
+import lombok.Data;
+
+/**
+ * Status of a part of an interpolated grid requested from TUI separately.
+ */
+@Data
+public class GetInterpolatedMeasurementShardResponse {
+
+  private float minX;
+
+  private float minY;
+
+  private float maxX;
+
+  private float maxY;
+
+  /**
+   * Number of grid locations of the shard.
+   */
+  private int size;
+
+  private boolean dataReceived;
+
+  private String error;
+}
@@ -19,15 +19,42 @@ package com.desire.dtos;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class GetInterpolatedMeasurementsRequest {
 
-  private final String campaignId;
+  private String campaignId;
 
   private List<GetInterpolatedMeasurementsLocationRequest> locations = new ArrayList<>();
 
+  /**
+   * Grid of the locations, sent instead of the location list to keep the request size constant.
+   */
+  private GetInterpolatedMeasurementsGridRequest grid;
+
+  public GetInterpolatedMeasurementsRequest(String campaignId) {
+    this.campaignId = campaignId;
+  }
+
   public record GetInterpolatedMeasurementsLocationRequest(float x, float y) {
 
   }
+
+  /**
+   * Grid of {@code sizeX * sizeY} locations starting at the origin, ordered by x first. Locations
+   * are computed by index, so no rounding errors accumulate along the grid.
+   */
+  public record GetInterpolatedMeasurementsGridRequest(float originX, float originY, float step,
+      int sizeX, int sizeY) {
+
+    public float x(int index) {
+      return originX + (float) (index / sizeY) * step;
+    }
+
+    public float y(int index) {
+      return originY + (float) (index % sizeY) * step;
+    }
+  }
 }
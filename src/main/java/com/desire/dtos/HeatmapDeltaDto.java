@@ -0,0 +1,52 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.dtos;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cells of a campaign heatmap whose aggregates changed since the previous frame. Cells are
+ * addressed by their index at the tile resolution, so clients can patch their grid in place.
+ */
+@Data
+@NoArgsConstructor
+public class HeatmapDeltaDto {
+
+  public HeatmapDeltaDto(String campaignId, float tileResolution, List<Cell> cells) {
+    this.campaignId = campaignId;
+    this.tileResolution = tileResolution;
+    this.cells = cells;
+  }
+
+  private LocalDateTime updateMoment = LocalDateTime.now();
+
+  private String campaignId;
+
+  private float tileResolution;
+
+  private List<Cell> cells;
+
+  /**
+   * Current aggregate of a cell, means are {@code null} without values.
+   */
+  public record Cell(long tileX, long tileY, long count, Double dataRate, Double latency) {
+
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Acknowledgement for a single batch of AGV measurements written by the streaming ingestion
+ * endpoint.
+ */
+@Data
+@NoArgsConstructor
+public class PostAGVMeasurementBatchResponse {
+
+  public PostAGVMeasurementBatchResponse(int batch) {
+    this.batch = batch;
+  }
+
+  /**
+   * Sequence number of the batch within the upload, starting at 1.
+   */
+  private int batch;
+
+  /**
+   * Number of rows read from the upload for this batch.
+   */
+  private int received;
+
+  /**
+   * Number of rows written to the DB.
+   */
+  private int inserted;
+
+  /**
+   * Number of rows skipped as duplicates, either within the upload or of stored measurements.
+   */
+  private int skipped;
+
+  /**
+   * Number of rows that failed validation or could not be written.
+   */
+  private int rejected;
+
+  private List<String> errors = new ArrayList<>();
+
+  /**
+   * Row which could not be parsed, set on the last acknowledgement only. Rows after it are not
+   * read, rows before it are acknowledged by the preceding batches.
+   */
+  private Integer failedRow;
+}
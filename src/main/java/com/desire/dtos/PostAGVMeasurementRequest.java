@@ -91,9 +91,11 @@ public class PostAGVMeasurementRequest {
       AGVMeasurements measurement = new AGVMeasurements();
 
       measurement.setCampaign(campaign);
+      measurement.setAgvId(agvId);
       measurement.setLatency(latency);
       measurement.setDataRate(dataRate);
       measurement.setMeasurementId(measurementId);
+      measurement.setMeasureMoment(measureMoment.toLocalDateTime());
 
       Coordinates coordinates = new Coordinates();
       coordinates.setX(locationX);
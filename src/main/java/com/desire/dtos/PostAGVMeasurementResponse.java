@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.desire.model.entities.AGVMeasurements;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of posting AGV measurements. Measurements already stored for the campaign are skipped, so
+ * posting the same values again is safe.
+ */
+@Data
+@NoArgsConstructor
+public class PostAGVMeasurementResponse {
+
+  /**
+   * Number of measurements written to the DB.
+   */
+  private int inserted;
+
+  /**
+   * Number of measurements skipped as duplicates, either within the request or of stored
+   * measurements.
+   */
+  private int skipped;
+
+  /**
+   * Measurements written to the DB.
+   */
+  private List<AGVMeasurements> measurements = new ArrayList<>();
+}
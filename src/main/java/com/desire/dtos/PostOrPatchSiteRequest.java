@@ -19,6 +19,7 @@ package com.desire.dtos;
 import com.desire.model.entities.Coordinates;
 import com.desire.model.entities.Organizations;
 import com.desire.model.entities.Sites;
+import com.desire.types.InterpolationEngine;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -49,6 +50,8 @@ public class PostOrPatchSiteRequest {
   @Positive
   private Float mapTileResolution;
 
+  private InterpolationEngine interpolationEngine;
+
   private String floorPlanImagePath;
 
   public Sites toEntity(Organizations organization) {
@@ -68,6 +71,7 @@ public class PostOrPatchSiteRequest {
     site.setMinCoordinates(minCoordinates);
     site.setMaxCoordinates(maxCoordinates);
     site.setMapTileResolution(mapTileResolution);
+    site.setInterpolationEngine(interpolationEngine);
     site.setFloorPlanImagePath(floorPlanImagePath);
 
     return site;
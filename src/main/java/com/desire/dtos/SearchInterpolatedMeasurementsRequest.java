@@ -16,6 +16,7 @@
 
 package com.desire.dtos;
 
+import com.desire.types.InterpolationEngine;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
@@ -49,6 +50,11 @@ public class SearchInterpolatedMeasurementsRequest {
 
   private Boolean generateFakeData;
 
+  /**
+   * Engine to use instead of the one of the site.
+   */
+  private InterpolationEngine engine;
+
   @JsonIgnore
   public boolean isMinCoordinatesPresent() {
     return minX != null && minY != null;
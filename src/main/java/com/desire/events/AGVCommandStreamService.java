@@ -23,6 +23,7 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import com.desire.model.entities.AGVCommands;
@@ -34,6 +35,8 @@ import com.querydsl.core.BooleanBuilder;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Service
@@ -107,4 +110,19 @@ public class AGVCommandStreamService extends EventStreamService<String, AGVComma
     return newEventStream;
   }
 
+  @Override
+  public Flux<ServerSentEvent<String>> subscribeReactive(String id, Long lastEventId) {
+    Flux<ServerSentEvent<String>> events = super.subscribeReactive(id, lastEventId);
+
+    // Send the latest command to new AGV connections, reconnecting ones receive missed commands.
+    return lastEventId == null ? events.startWith(snapshot(id)) : events;
+  }
+
+  @Override
+  protected Flux<ServerSentEvent<String>> snapshot(String id) {
+    return Flux.defer(
+        () -> Mono.justOrEmpty(agvCommandDao.findFirstByAgvIdOrderByCreateMomentDesc(id)))
+        .concatMap(this::toEvent);
+  }
+
 }
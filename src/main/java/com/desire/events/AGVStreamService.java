@@ -16,13 +16,136 @@
 
 package com.desire.events;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import com.desire.dtos.AGVUpdateDto;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.repositories.AGVPositionRepository;
+import com.desire.services.AGVStatusService;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
 
+/**
+ * <p>
+ * Streams positions, measurements and status events of AGVs. Streams are addressed by AGV ID.
+ * </p>
+ *
+ * <p>
+ * If coalescing is enabled, updates of an AGV are collected and published once per window as a
+ * single frame with the latest position, the latest status and all new measurements.
+ * </p>
+ */
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class AGVStreamService extends EventStreamService<String, AGVUpdateDto> {
 
+  private final @NonNull AGVPositionRepository positionDao;
+  private final @NonNull AGVStatusService agvStatusService;
+  private final @NonNull SiteStreamService siteStreamService;
+
+  @Value("${app.streams.agv.coalesce.enabled:false}")
+  private boolean coalesce;
+
+  /**
+   * Collected updates per AGV ID.
+   */
+  private final Map<String, AGVUpdateDto> pendingUpdates = new ConcurrentHashMap<>();
+
+  /**
+   * @return Whether the AGV has subscribers on its own or on a site stream.
+   */
+  @Override
+  protected boolean hasSubscribers(String agvId) {
+    return super.hasSubscribers(agvId) || siteStreamService.isWatched(agvId);
+  }
+
+  /**
+   * @return AGVs with subscribers on their own or on a site stream.
+   */
+  @Override
+  protected Set<String> getSubscribedKeys() {
+    Set<String> agvIds = super.getSubscribedKeys();
+    agvIds.addAll(siteStreamService.getWatchedAgvIds());
+
+    return agvIds;
+  }
+
+  /**
+   * Forwards the serialized update to the site streams of the AGV.
+   */
+  @Override
+  protected void delivered(String agvId, String update) {
+    siteStreamService.forward(agvId, update);
+  }
+
+  /**
+   * Publishes the update right away or, if coalescing is enabled, with the next frame.
+   */
+  @Override
+  public void publish(String agvId, AGVUpdateDto update) {
+    if (!coalesce) {
+      super.publish(agvId, update);
+    } else if (hasSubscribers(agvId)) {
+      pendingUpdates.merge(agvId, update, AGVStreamService::merge);
+    }
+  }
+
+  /**
+   * Publishes the collected updates, one frame per AGV.
+   */
+  @Scheduled(fixedDelayString = "${app.streams.agv.coalesce.window-ms:200}")
+  public void flush() {
+    for (String agvId : pendingUpdates.keySet()) {
+      AGVUpdateDto update = pendingUpdates.remove(agvId);
+
+      if (update != null) {
+        super.publish(agvId, update);
+      }
+    }
+  }
+
+  /**
+   * @return Latest position and status of the AGV.
+   */
+  @Override
+  protected Flux<ServerSentEvent<String>> snapshot(String agvId) {
+    return Flux.defer(() -> {
+      AGVUpdateDto update = new AGVUpdateDto();
+      update.setPosition(positionDao.findFirstByAgvIdOrderByCreateMomentDesc(agvId).orElse(null));
+      update.setStatus(agvStatusService.getLatestStatusEvent(agvId));
+
+      return toEvent(update);
+    });
+  }
+
+  /**
+   * @return Update with the latest position and status of both updates and all their measurements.
+   */
+  private static AGVUpdateDto merge(AGVUpdateDto previous, AGVUpdateDto next) {
+    AGVUpdateDto update = new AGVUpdateDto();
+    update.setUpdateMoment(next.getUpdateMoment());
+    update.setPosition(next.getPosition() != null ? next.getPosition() : previous.getPosition());
+    update.setStatus(next.getStatus() != null ? next.getStatus() : previous.getStatus());
+
+    if (previous.getMeasurements() == null) {
+      update.setMeasurements(next.getMeasurements());
+    } else if (next.getMeasurements() == null) {
+      update.setMeasurements(previous.getMeasurements());
+    } else {
+      List<AGVMeasurements> measurements = new ArrayList<>(previous.getMeasurements());
+      measurements.addAll(next.getMeasurements());
+      update.setMeasurements(measurements);
+    }
+
+    return update;
+  }
 }
@@ -17,21 +17,39 @@
 package com.desire.events;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import com.desire.types.StreamOverflowPolicy;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 /**
  * <p>
@@ -44,12 +62,37 @@ import lombok.extern.slf4j.Slf4j;
  * disconnects – up to {@link #TIMEOUT} before it gets closed and removed.
  * </p>
  *
+ * <p>
+ * Events are serialized once per publish and queued for each subscriber. The queues are drained by
+ * the {@link StreamExecutor}, so slow clients neither block the publishing thread nor other
+ * application tasks. If a queue is full, the {@link StreamOverflowPolicy} of the service applies.
+ * </p>
+ *
+ * <p>
+ * Subscribers are kept in copy-on-write lists, so publishing iterates a stable snapshot without
+ * locking. Heartbeats are driven by a timing wheel with one slot per second of the heartbeat
+ * interval. Each subscriber is assigned to a random slot, which spreads the heartbeats over the
+ * interval instead of sending all of them at once.
+ * </p>
+ *
+ * <p>
+ * Alternatively, streams can be subscribed as reactive server-sent events, see
+ * {@link #subscribeReactive(Object, Long)}. These events carry IDs increasing per key, and the
+ * latest events of each key are kept to replay them to reconnecting clients. Kept events are
+ * removed once a key had no reactive subscriber for the replay retention.
+ * </p>
+ *
+ * <p>
+ * If enabled, published events are sent by the {@link StreamClusterService} to the other backend
+ * instances with subscribers of their key and delivered to these subscribers as well.
+ * </p>
+ *
  * @param <K> Type of stream keys
  * @param <V> Type of object to publish on stream
  */
 @Slf4j
 @Service
-public abstract class EventStreamService<K, V> {
+public abstract class EventStreamService<K, V> implements BeanNameAware {
 
   public record Heartbeat(LocalDateTime dateTime) {
 
@@ -58,12 +101,82 @@ public abstract class EventStreamService<K, V> {
   @Autowired
   ObjectMapper objectMapper;
 
+  @Autowired
+  StreamExecutor streamExecutor;
+
+  @Autowired
+  StreamClusterService streamCluster;
+
+  /**
+   * Name of the stream across instances.
+   */
+  private String streamName;
+
+  /**
+   * Maximum number of queued events per subscriber.
+   */
+  @Value("${app.streams.queue-size:256}")
+  private int queueSize;
+
+  @Getter
+  @Value("${app.streams.overflow-policy:DROP_OLDEST}")
+  private StreamOverflowPolicy overflowPolicy;
+
+  @Value("${app.streams.heartbeat-interval-seconds:30}")
+  private int heartbeatInterval;
+
+  /**
+   * Number of latest events kept per key for reconnecting reactive subscribers, 0 to disable.
+   */
+  @Value("${app.streams.replay-size:64}")
+  private int replaySize;
+
+  /**
+   * Time the events of a key are kept after its last reactive subscriber left.
+   */
+  @Value("${app.streams.replay-retention-seconds:300}")
+  private int replayRetention;
+
   private static final String NEW_LINE = "\n";
   private static final Duration TIMEOUT = Duration.ofHours(8);
 
-  protected final ConcurrentHashMap<K, List<ResponseBodyEmitter>> streams =
+  protected final ConcurrentHashMap<K, CopyOnWriteArrayList<Subscriber>> streams =
       new ConcurrentHashMap<>();
 
+  /**
+   * Reactive subscribers per key.
+   */
+  private final ConcurrentHashMap<K, Channel> channels = new ConcurrentHashMap<>();
+
+  /**
+   * Latest events per key.
+   */
+  private final ConcurrentHashMap<K, Replay> replays = new ConcurrentHashMap<>();
+
+  /**
+   * Subscribers per slot of the heartbeat wheel.
+   */
+  private final List<Set<Subscriber>> heartbeatWheel = new ArrayList<>();
+
+  /**
+   * Next slot of the heartbeat wheel, only accessed by the scheduler.
+   */
+  private int heartbeatCursor;
+
+  @Override
+  public void setBeanName(String name) {
+    streamName = name;
+  }
+
+  @PostConstruct
+  void init() {
+    for (int i = 0; i < Math.max(1, heartbeatInterval); i++) {
+      heartbeatWheel.add(ConcurrentHashMap.newKeySet());
+    }
+
+    streamCluster.register(streamName, this);
+  }
+
   /**
    * Returns a new response body emitter for the given key.
    *
@@ -88,6 +201,74 @@ public abstract class EventStreamService<K, V> {
     return newEventStream;
   }
 
+  /**
+   * <p>
+   * Returns a stream of server-sent events for the given key. Unlike response body emitters, the
+   * stream is only written as fast as the client reads it. Events the client cannot keep up with
+   * are buffered up to the queue size, then the {@link StreamOverflowPolicy} of the service
+   * applies. The subscription is cancelled when the client disconnects.
+   * </p>
+   *
+   * <p>
+   * Reconnecting clients pass the ID of the last event they received. The kept events after it are
+   * replayed before new events. If older events are missing already or the ID is unknown, e.g.
+   * after a restart, a snapshot of the current state is sent instead, see {@link #snapshot}.
+   * </p>
+   *
+   * @param key Target stream group
+   * @param lastEventId ID of the last received event or {@code null} for new clients
+   * @return Events of the stream and regular heartbeats.
+   */
+  public Flux<ServerSentEvent<String>> subscribeReactive(K key, Long lastEventId) {
+    return Flux.defer(() -> {
+      Channel channel = channels.compute(key, (k, existing) -> {
+        Channel newChannel = existing == null ? new Channel() : existing;
+        newChannel.subscribers++;
+
+        return newChannel;
+      });
+
+      // Connected right away, so no event is missed while collecting the events to replay.
+      AtomicReference<Disposable> connection = new AtomicReference<>();
+      Flux<ServerSentEvent<String>> events =
+          limit(channel.sink.asFlux()).publish(1).autoConnect(0, connection::set);
+
+      long replayedId = replayedId(key);
+
+      Flux<ServerSentEvent<String>> heartbeats =
+          Flux.interval(Duration.ZERO, Duration.ofSeconds(Math.max(1, heartbeatInterval)))
+              .onBackpressureDrop()
+              .concatMap(tick -> toEvent(new Heartbeat(LocalDateTime.now())));
+
+      return Flux
+          .concat(replay(key, lastEventId, replayedId),
+              events.filter(event -> event.id() == null || getId(event) > replayedId))
+          .mergeWith(heartbeats).doFinally(signal -> {
+            connection.get().dispose();
+            channels.computeIfPresent(key,
+                (k, existing) -> --existing.subscribers == 0 ? null : existing);
+          });
+    });
+  }
+
+  /**
+   * @see #subscribeReactive(Object, Long)
+   */
+  public Flux<ServerSentEvent<String>> subscribeReactive(K key) {
+    return subscribeReactive(key, null);
+  }
+
+  /**
+   * Returns events describing the current state of the stream, sent to reconnecting clients which
+   * missed more events than are kept. Streams without a state send nothing.
+   *
+   * @param key Target stream group
+   * @return Events of the current state.
+   */
+  protected Flux<ServerSentEvent<String>> snapshot(K key) {
+    return Flux.empty();
+  }
+
   /**
    * Sends an event to all streams associated to the given key.
    *
@@ -95,17 +276,186 @@ public abstract class EventStreamService<K, V> {
    * @param eventObject Object to be published in target stream
    */
   public void publish(K key, V eventObject) {
-    streams.computeIfPresent(key, (k, eventStreamsList) -> {
-      eventStreamsList.forEach(eventStream -> {
-        try {
-          eventStream.send(objectMapper.writeValueAsString(eventObject).concat(NEW_LINE));
-        } catch (Exception e) {
-          log.error("Sending event for key {} with error '{}'.", key, e.getMessage());
+    if (!hasSubscribers(key)) {
+      skip(key);
+      return;
+    }
+
+    String event;
+
+    try {
+      event = objectMapper.writeValueAsString(eventObject);
+    } catch (JsonProcessingException e) {
+      log.error("Serializing event for key {} with error '{}'.", key, e.getMessage());
+      return;
+    }
+
+    deliver(key, event);
+
+    if (streamCluster.hasRemoteSubscribers(streamName, String.valueOf(key))) {
+      streamCluster.broadcast(streamName, String.valueOf(key), event);
+    }
+  }
+
+  /**
+   * @return Whether the key has subscribers on this or, in a cluster, on other instances.
+   */
+  protected boolean hasSubscribers(K key) {
+    return hasLocalSubscribers(key) || streamCluster.hasRemoteSubscribers(streamName,
+        String.valueOf(key));
+  }
+
+  /**
+   * @return Keys with subscribers on this instance, announced to the other instances in a cluster.
+   */
+  protected Set<String> getSubscribedKeys() {
+    Set<String> keys = new HashSet<>();
+
+    streams.keySet().forEach(key -> keys.add(String.valueOf(key)));
+    channels.keySet().forEach(key -> keys.add(String.valueOf(key)));
+
+    return keys;
+  }
+
+  /**
+   * Converts keys of events received from other instances. Streams with keys other than strings
+   * must override it.
+   */
+  @SuppressWarnings("unchecked")
+  protected K toKey(String key) {
+    return (K) key;
+  }
+
+  /**
+   * Delivers an event published by another instance to the local subscribers.
+   */
+  void deliverRemote(String key, String event) {
+    deliver(toKey(key), event);
+  }
+
+  private boolean hasLocalSubscribers(K key) {
+    return streams.containsKey(key) || channels.containsKey(key);
+  }
+
+  /**
+   * Advances the event ID of a kept key for an event that is not published, so clients
+   * reconnecting later receive the snapshot instead of silently missing the event.
+   */
+  private void skip(K key) {
+    Replay replay = replaySize > 0 ? replays.get(key) : null;
+
+    if (replay != null) {
+      synchronized (replay) {
+        replay.events.clear();
+        replay.lastId++;
+      }
+    }
+  }
+
+  /**
+   * Called for each event delivered to the local subscribers, whether it was published on this or,
+   * in a cluster, on another instance.
+   *
+   * @param key Target stream group
+   * @param event Serialized event
+   */
+  protected void delivered(K key, String event) {
+  }
+
+  /**
+   * Sends the serialized event to the local subscribers of the key.
+   */
+  void deliver(K key, String event) {
+    delivered(key, event);
+
+    List<Subscriber> subscribers = streams.get(key);
+    Channel channel = channels.get(key);
+    Replay replay = replaySize > 0 ? replays.get(key) : null;
+
+    if (subscribers != null) {
+      byte[] frame = event.concat(NEW_LINE).getBytes(StandardCharsets.UTF_8);
+
+      subscribers.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    if (replay == null) {
+      if (channel != null) {
+        channel.emit(ServerSentEvent.builder(event).build());
+      }
+
+      return;
+    }
+
+    // IDs are assigned and emitted under the same lock, so they are emitted in order.
+    synchronized (replay) {
+      ServerSentEvent<String> sse =
+          ServerSentEvent.builder(event).id(Long.toString(++replay.lastId)).build();
+
+      replay.events.add(sse);
+
+      if (replay.events.size() > replaySize) {
+        replay.events.poll();
+      }
+
+      if (channel != null) {
+        channel.emit(sse);
+      }
+    }
+  }
+
+  /**
+   * @return ID of the latest event that is replayed or sent as part of the snapshot to a new
+   *         subscriber, later events are sent as they are published.
+   */
+  private long replayedId(K key) {
+    if (replaySize <= 0) {
+      return Long.MIN_VALUE;
+    }
+
+    Replay replay = replays.computeIfAbsent(key, k -> new Replay());
+
+    synchronized (replay) {
+      return replay.lastId;
+    }
+  }
+
+  /**
+   * @return Kept events after the last event ID up to the replayed ID, or the snapshot if events
+   *         are missing.
+   */
+  private Flux<ServerSentEvent<String>> replay(K key, Long lastEventId, long replayedId) {
+    if (lastEventId == null || replaySize <= 0 || lastEventId == replayedId) {
+      return Flux.empty();
+    }
+
+    List<ServerSentEvent<String>> events = new ArrayList<>();
+    Replay replay = replays.get(key);
+
+    synchronized (replay) {
+      long oldestId = replay.events.isEmpty() ? replay.lastId + 1 : getId(replay.events.peek());
+
+      if (lastEventId >= oldestId - 1 && lastEventId < replayedId) {
+        for (ServerSentEvent<String> event : replay.events) {
+          long id = getId(event);
+
+          if (id > lastEventId && id <= replayedId) {
+            events.add(event);
+          }
         }
-      });
 
-      return eventStreamsList;
-    });
+        return Flux.fromIterable(events);
+      }
+    }
+
+    log.info("Sending snapshot for key {} missing events after {}.", key, lastEventId);
+
+    String id = Long.toString(replayedId);
+
+    return snapshot(key).map(event -> ServerSentEvent.builder(event.data()).id(id).build());
+  }
+
+  private static long getId(ServerSentEvent<String> event) {
+    return Long.parseLong(event.id());
   }
 
   /**
@@ -114,11 +464,14 @@ public abstract class EventStreamService<K, V> {
    * @param key Target stream group
    */
   public void close(K key) {
-    streams.computeIfPresent(key, (k, streamsList) -> {
-      streamsList.forEach(ResponseBodyEmitter::complete);
+    List<Subscriber> subscribers = streams.remove(key);
 
-      return null;
-    });
+    if (subscribers != null) {
+      subscribers.forEach(subscriber -> {
+        heartbeatWheel.get(subscriber.heartbeatSlot).remove(subscriber);
+        subscriber.getEmitter().complete();
+      });
+    }
   }
 
   /**
@@ -128,12 +481,18 @@ public abstract class EventStreamService<K, V> {
    * @param eventStream response body emitter to be closed
    */
   private void close(K key, ResponseBodyEmitter eventStream) {
+    eventStream.complete();
+
     streams.computeIfPresent(key, (k, streamsList) -> {
-      eventStream.complete();
-      streamsList.remove(eventStream);
+      for (Subscriber subscriber : streamsList) {
+        if (subscriber.getEmitter() == eventStream) {
+          heartbeatWheel.get(subscriber.heartbeatSlot).remove(subscriber);
+          streamsList.remove(subscriber);
+        }
+      }
 
       // Check if we just deleted the last item of the list
-      if (CollectionUtils.isEmpty(streamsList)) {
+      if (streamsList.isEmpty()) {
         log.info("Removing event stream list for key {}.", key);
         return null; // Deletes the list for associated key
       }
@@ -167,33 +526,54 @@ public abstract class EventStreamService<K, V> {
       close(key, newEventStream);
     });
 
-    addStreamToList(key, newEventStream);
+    addStreamToList(key, new Subscriber(key, newEventStream));
 
     return newEventStream;
   }
 
   /**
-   * Adds a new response body stream to the list associated with the map key.
+   * Adds a new subscriber to the list associated with the map key.
    *
    * @param key Target stream group
-   * @param newEventStream New response body emitter
+   * @param subscriber New subscriber
    */
-  private void addStreamToList(K key, ResponseBodyEmitter newEventStream) {
+  private void addStreamToList(K key, Subscriber subscriber) {
     try {
       // Initialize the list if not present already.
-      streams.computeIfAbsent(key, k -> new ArrayList<>());
-
-      // Add new event stream to the list.
-      streams.computeIfPresent(key, (k, streamsList) -> {
-        streamsList.add(newEventStream);
+      streams.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(subscriber);
 
-        return streamsList;
-      });
+      heartbeatWheel.get(subscriber.heartbeatSlot).add(subscriber);
     } catch (Exception e) {
       log.error("Adding stream to list for key {} with error '{}'.", key, e.getMessage());
     }
   }
 
+  /**
+   * @return Server-sent event of the serialized object.
+   */
+  protected Mono<ServerSentEvent<String>> toEvent(Object eventObject) {
+    return Mono.fromCallable(
+        () -> ServerSentEvent.builder(objectMapper.writeValueAsString(eventObject)).build());
+  }
+
+  /**
+   * Limits the events buffered for a slow reactive subscriber according to the overflow policy.
+   */
+  private Flux<ServerSentEvent<String>> limit(Flux<ServerSentEvent<String>> events) {
+    return switch (getOverflowPolicy()) {
+      case DROP_OLDEST -> events.onBackpressureBuffer(queueSize, event -> {
+      }, BufferOverflowStrategy.DROP_OLDEST);
+      case COALESCE -> events.onBackpressureLatest();
+      // Fails with an overflow error, which closes the stream.
+      case DISCONNECT -> events.onBackpressureBuffer(queueSize);
+    };
+  }
+
+  private byte[] toFrame(Object eventObject) throws JsonProcessingException {
+    return objectMapper.writeValueAsString(eventObject).concat(NEW_LINE)
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
   /**
    * Sends a message containing the current time to let know the client stream started. Clients
    * might use this timestamp to verify or sync their local system time.
@@ -203,34 +583,204 @@ public abstract class EventStreamService<K, V> {
    * @throws IOException Thrown if an error occurs when sending the event.
    */
   protected void sendHeartbeat(ResponseBodyEmitter eventStream) throws IOException {
-    eventStream
-        .send(objectMapper.writeValueAsString(new Heartbeat(LocalDateTime.now())).concat(NEW_LINE));
+    eventStream.send(toFrame(new Heartbeat(LocalDateTime.now())));
   }
 
   /**
-   * Sends regular heartbeat messages to all active response body emitters to keep the connection
-   * alive.
+   * Sends regular heartbeat messages to the response body emitters of the current slot of the
+   * heartbeat wheel to keep the connections alive. Heartbeats are queued like events, so they do
+   * not interleave with running sends.
    */
-  @Scheduled(fixedRate = 30, timeUnit = TimeUnit.SECONDS)
+  @Scheduled(fixedRate = 1, timeUnit = TimeUnit.SECONDS)
   protected void sendHeartbeats() {
+    Set<Subscriber> subscribers = heartbeatWheel.get(heartbeatCursor);
+
+    heartbeatCursor = (heartbeatCursor + 1) % heartbeatWheel.size();
+
+    if (subscribers.isEmpty()) {
+      return;
+    }
+
     LocalDateTime startTime = LocalDateTime.now();
 
-    int heartbeatsSent = 0;
+    byte[] frame;
+
+    try {
+      frame = toFrame(new Heartbeat(startTime));
+    } catch (JsonProcessingException e) {
+      log.error("Error serializing heartbeat message: {}", e.getMessage());
+      return;
+    }
+
+    subscribers.forEach(subscriber -> subscriber.offer(frame));
+
+    log.debug("Queued heartbeats for {} emitters in {} ms.", subscribers.size(),
+        ChronoUnit.MILLIS.between(startTime, LocalDateTime.now()));
+  }
+
+  /**
+   * Removes the kept events of keys without reactive subscribers for the replay retention.
+   */
+  @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+  protected void evictReplays() {
+    long now = System.currentTimeMillis();
+
+    replays.forEach((key, replay) -> {
+      if (channels.containsKey(key)) {
+        replay.idleSince = 0;
+      } else if (replay.idleSince == 0) {
+        replay.idleSince = now;
+      } else if (now - replay.idleSince >= TimeUnit.SECONDS.toMillis(replayRetention)) {
+        // Checked again atomically, as a client may have subscribed in the meantime.
+        replays.computeIfPresent(key, (k, existing) -> channels.containsKey(k) ? existing : null);
+      }
+    });
+  }
+
+  /**
+   * Multicast sink of the reactive subscribers of a key. Each subscriber buffers the events it
+   * cannot keep up with on its own, so the sink never waits for a slow subscriber.
+   */
+  private static class Channel {
+
+    private final Sinks.Many<ServerSentEvent<String>> sink =
+        Sinks.many().multicast().directBestEffort();
+
+    /**
+     * Number of subscribers, only accessed within the channel map functions.
+     */
+    private int subscribers;
+
+    /**
+     * Emits the event, serialized since sinks must not be called concurrently.
+     */
+    synchronized void emit(ServerSentEvent<String> event) {
+      sink.tryEmitNext(event);
+    }
+  }
+
+  /**
+   * Latest events of a key. IDs start at the creation time in microseconds, so IDs of a previous
+   * run are unknown after a restart.
+   */
+  private static class Replay {
+
+    private final ArrayDeque<ServerSentEvent<String>> events = new ArrayDeque<>();
+
+    private long lastId = System.currentTimeMillis() * 1000;
+
+    /**
+     * Time since the key has no reactive subscriber, only accessed by the scheduler.
+     */
+    private long idleSince;
+  }
+
+  /**
+   * Response body emitter with a bounded queue of serialized events. At most one drain task per
+   * subscriber runs at a time, so events are sent in order.
+   */
+  protected class Subscriber {
+
+    private final K key;
+
+    @Getter
+    private final ResponseBodyEmitter emitter;
 
-    for (Map.Entry<K, List<ResponseBodyEmitter>> stream : streams.entrySet()) {
-      for (ResponseBodyEmitter emitter : stream.getValue()) {
+    private final ArrayDeque<byte[]> queue = new ArrayDeque<>();
+
+    private final int heartbeatSlot = ThreadLocalRandom.current().nextInt(heartbeatWheel.size());
+
+    private boolean draining;
+
+    private boolean closed;
+
+    private long dropped;
+
+    Subscriber(K key, ResponseBodyEmitter emitter) {
+      this.key = key;
+      this.emitter = emitter;
+    }
+
+    /**
+     * Queues the frame and starts draining the queue if no drain task is running.
+     */
+    void offer(byte[] frame) {
+      boolean startDraining;
+      boolean disconnect = false;
+
+      synchronized (queue) {
+        if (closed) {
+          return;
+        }
+
+        if (queue.size() >= queueSize) {
+          int size = queue.size();
+
+          switch (getOverflowPolicy()) {
+            case DROP_OLDEST -> queue.poll();
+            case COALESCE -> queue.clear();
+            case DISCONNECT -> {
+              queue.clear();
+              closed = true;
+              disconnect = true;
+            }
+          }
+
+          dropped += size - queue.size();
+        }
+
+        if (!disconnect) {
+          queue.add(frame);
+        }
+
+        startDraining = !disconnect && !draining;
+        draining = draining || startDraining;
+      }
+
+      if (disconnect) {
+        log.warn("Closing slow stream for key {} after dropping {} events.", key, dropped);
+        close(key, emitter);
+      } else if (startDraining) {
         try {
-          sendHeartbeat(emitter);
-          heartbeatsSent++;
-        } catch (IOException e) {
-          log.error("Error sending heartbeat message: {}", e.getMessage());
+          streamExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          log.error("Draining stream for key {} with error '{}'.", key, e.getMessage());
+
+          synchronized (queue) {
+            draining = false;
+          }
         }
       }
     }
 
-    if (heartbeatsSent > 0) {
-      log.info("Sent heartbeats to {} emitters in {} ms.", heartbeatsSent,
-          ChronoUnit.MILLIS.between(startTime, LocalDateTime.now()));
+    private void drain() {
+      while (true) {
+        byte[] frame;
+
+        synchronized (queue) {
+          frame = queue.poll();
+
+          if (frame == null) {
+            draining = false;
+            return;
+          }
+        }
+
+        try {
+          emitter.send(frame);
+        } catch (Exception e) {
+          log.error("Sending event for key {} with error '{}'.", key, e.getMessage());
+
+          synchronized (queue) {
+            queue.clear();
+            draining = false;
+            closed = true;
+          }
+
+          close(key, emitter);
+          return;
+        }
+      }
     }
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.events;
+
+import com.desire.dtos.HeatmapDeltaDto;
+import com.desire.dtos.HeatmapDeltaDto.Cell;
+import com.desire.model.entities.AGVMeasurementTiles;
+import com.desire.model.repositories.AGVMeasurementTileRepository;
+import com.desire.types.StreamOverflowPolicy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * Streams changes of campaign heatmaps. Streams are addressed by campaign ID.
+ * </p>
+ *
+ * <p>
+ * Tiles touched by new measurements are collected per campaign and published once per window with
+ * their current aggregates, so a burst of measurements results in a single frame. Tiles are only
+ * collected for campaigns with subscribers on this or, in a cluster, on other instances.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class HeatmapStreamService extends EventStreamService<String, HeatmapDeltaDto> {
+
+  private final @NonNull AGVMeasurementTileRepository tileDao;
+
+  /**
+   * IDs of changed tiles per campaign ID.
+   */
+  private final Map<String, Set<String>> changedTiles = new ConcurrentHashMap<>();
+
+  /**
+   * Frames hold changes only, so clients missing a frame must reload the heatmap.
+   */
+  @Override
+  public StreamOverflowPolicy getOverflowPolicy() {
+    return StreamOverflowPolicy.DISCONNECT;
+  }
+
+  /**
+   * Marks the tiles as changed to publish them with the next frame.
+   *
+   * @param tiles Tiles touched by new measurements
+   */
+  public void markChanged(Collection<AGVMeasurementTiles> tiles) {
+    for (AGVMeasurementTiles tile : tiles) {
+      if (hasSubscribers(tile.getCampaignId())) {
+        changedTiles.computeIfAbsent(tile.getCampaignId(), k -> ConcurrentHashMap.newKeySet())
+            .add(tile.getId());
+      }
+    }
+  }
+
+  /**
+   * Publishes the current aggregates of all changed tiles, one frame per campaign.
+   */
+  @Scheduled(fixedDelayString = "${app.heatmap.stream.window-ms:500}")
+  public void flush() {
+    for (String campaignId : changedTiles.keySet()) {
+      Set<String> tileIds = changedTiles.remove(campaignId);
+
+      if (tileIds == null || tileIds.isEmpty()) {
+        continue;
+      }
+
+      try {
+        List<AGVMeasurementTiles> tiles = tileDao.findAllById(tileIds);
+
+        if (tiles.isEmpty()) {
+          continue;
+        }
+
+        List<Cell> cells = new ArrayList<>(tiles.size());
+
+        for (AGVMeasurementTiles tile : tiles) {
+          cells.add(new Cell(tile.getTileX(), tile.getTileY(), tile.getDataRate().getCount(),
+              tile.getDataRate().getMean(), tile.getLatency().getMean()));
+        }
+
+        publish(campaignId,
+            new HeatmapDeltaDto(campaignId, tiles.get(0).getResolution(), cells));
+      } catch (RuntimeException e) {
+        log.error("Publishing heatmap changes for campaign {} with error '{}'.", campaignId,
+            e.getMessage());
+      }
+    }
+  }
+}
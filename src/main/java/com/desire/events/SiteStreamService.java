@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.events;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import com.desire.dtos.SiteAGVUpdateDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * <p>
+ * Streams updates of all AGVs of a site, optionally limited to the AGVs of a campaign, over a
+ * single connection. Streams are addressed by organization ID, site ID and campaign ID, so viewers
+ * of different organizations never share a stream.
+ * </p>
+ *
+ * <p>
+ * Updates are taken from the {@link AGVStreamService} as serialized there and tagged with the AGV
+ * ID once, so all viewers of a site share the same frame. Events of other instances in a cluster
+ * are forwarded by the {@link AGVStreamService} as well, so site frames are not broadcast again.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SiteStreamService extends EventStreamService<String, SiteAGVUpdateDto> {
+
+  /**
+   * Keys of the site streams per AGV ID.
+   */
+  private final Map<String, Set<String>> keysByAgv = new ConcurrentHashMap<>();
+
+  /**
+   * Number of subscribers watching each AGV per key of the site streams, guarded by this service.
+   */
+  private final Map<String, Map<String, Integer>> agvsByKey = new HashMap<>();
+
+  /**
+   * Returns the stream of updates of the given AGVs. A stream forwards the updates of the AGVs of
+   * all its current subscribers.
+   *
+   * @param organizationId Organization of the subscriber
+   * @param siteId Site of the AGVs
+   * @param campaignId Campaign of the AGVs or {@code null} for all AGVs of the site
+   * @param agvIds AGVs visible to the subscriber
+   * @param lastEventId ID of the last received event or {@code null} for new clients
+   * @return Events of the stream and regular heartbeats.
+   */
+  public Flux<ServerSentEvent<String>> subscribeReactive(String organizationId, String siteId,
+      String campaignId, Collection<String> agvIds, Long lastEventId) {
+    String key = organizationId + "/" + siteId
+        + (StringUtils.isBlank(campaignId) ? "" : "/" + campaignId);
+    Set<String> watched = Set.copyOf(agvIds);
+
+    return Flux.defer(() -> {
+      watch(key, watched);
+
+      return subscribeReactive(key, lastEventId);
+    }).doFinally(signal -> unwatch(key, watched));
+  }
+
+  /**
+   * @return Whether updates of the AGV may have subscribers on a site stream.
+   */
+  boolean isWatched(String agvId) {
+    Set<String> keys = keysByAgv.get(agvId);
+
+    return keys != null && keys.stream().anyMatch(this::hasSubscribers);
+  }
+
+  /**
+   * @return AGVs with updates forwarded to a site stream.
+   */
+  Set<String> getWatchedAgvIds() {
+    return keysByAgv.keySet();
+  }
+
+  /**
+   * Site frames are not broadcast, their AGVs are announced by the {@link AGVStreamService}.
+   */
+  @Override
+  protected Set<String> getSubscribedKeys() {
+    return Set.of();
+  }
+
+  /**
+   * Sends a serialized update of an AGV to the site streams of the AGV.
+   *
+   * @param agvId Updated AGV
+   * @param update Serialized {@link com.desire.dtos.AGVUpdateDto}
+   */
+  void forward(String agvId, String update) {
+    Set<String> keys = keysByAgv.get(agvId);
+
+    if (keys == null || keys.isEmpty()) {
+      return;
+    }
+
+    String event;
+
+    try {
+      event = "{\"agvId\":" + objectMapper.writeValueAsString(agvId) + ",\"update\":" + update
+          + "}";
+    } catch (JsonProcessingException e) {
+      log.error("Serializing update of AGV {} with error '{}'.", agvId, e.getMessage());
+      return;
+    }
+
+    keys.forEach(key -> deliver(key, event));
+  }
+
+  private synchronized void watch(String key, Set<String> agvIds) {
+    Map<String, Integer> counts = agvsByKey.computeIfAbsent(key, k -> new HashMap<>());
+
+    for (String agvId : agvIds) {
+      if (counts.merge(agvId, 1, Integer::sum) == 1) {
+        keysByAgv.computeIfAbsent(agvId, k -> ConcurrentHashMap.newKeySet()).add(key);
+      }
+    }
+  }
+
+  /**
+   * Stops forwarding updates of the AGVs to the stream once no subscriber of it watches them.
+   */
+  private synchronized void unwatch(String key, Set<String> agvIds) {
+    Map<String, Integer> counts = agvsByKey.get(key);
+
+    if (counts == null) {
+      return;
+    }
+
+    for (String agvId : agvIds) {
+      if (counts.computeIfPresent(agvId, (k, count) -> count > 1 ? count - 1 : null) == null) {
+        keysByAgv.computeIfPresent(agvId, (k, keys) -> {
+          keys.remove(key);
+
+          return keys.isEmpty() ? null : keys;
+        });
+      }
+    }
+
+    if (counts.isEmpty()) {
+      agvsByKey.remove(key);
+    }
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.events;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Fans out stream events to all backend instances, so clients receive events regardless of the
+ * instance they are connected to.
+ * </p>
+ *
+ * <p>
+ * Events are written to a capped collection shared by all instances. Each instance tails the
+ * collection and delivers the events of other instances to its local subscribers. Capped
+ * collections work on standalone servers as well, unlike change streams.
+ * </p>
+ *
+ * <p>
+ * Each instance regularly announces the keys its clients subscribed to, so only events of keys
+ * with subscribers on another instance are written. Events are written by a single thread with a
+ * bounded queue; events exceeding it are dropped.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class StreamClusterService {
+
+  public static final String COLLECTION = "stream_events";
+  public static final String SUBSCRIPTIONS_COLLECTION = "stream_subscriptions";
+
+  private static final String NODE = "node";
+  private static final String STREAM = "stream";
+  private static final String KEY = "key";
+  private static final String EVENT = "event";
+  private static final String CREATE_MOMENT = "createMoment";
+  private static final String STREAMS = "streams";
+  private static final String UPDATE_MOMENT = "updateMoment";
+
+  private final @NonNull MongoTemplate mongoTemplate;
+
+  @Getter
+  @Value("${app.streams.cluster.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.streams.cluster.collection-size-mb:64}")
+  private long collectionSizeMb;
+
+  /**
+   * Maximum number of events waiting to be written.
+   */
+  @Value("${app.streams.cluster.queue-capacity:10000}")
+  private int queueCapacity;
+
+  /**
+   * Interval of announcing the subscribed keys, announcements expire after three intervals.
+   */
+  @Value("${app.streams.cluster.subscriptions-interval-ms:2000}")
+  private long subscriptionsInterval;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private final Map<String, EventStreamService<?, ?>> services = new ConcurrentHashMap<>();
+
+  /**
+   * Keys subscribed on other instances per stream name.
+   */
+  private volatile Map<String, Set<String>> remoteKeys = Map.of();
+
+  /**
+   * Writes events in order without blocking the publishing threads.
+   */
+  private ThreadPoolExecutor writer;
+
+  /**
+   * Number of events dropped since the last announcement.
+   */
+  private final AtomicLong dropped = new AtomicLong();
+
+  private Thread reader;
+
+  private volatile boolean running;
+
+  @PostConstruct
+  public void init() {
+    if (!enabled) {
+      return;
+    }
+
+    createCollection();
+
+    running = true;
+
+    writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "stream-cluster-writer");
+          thread.setDaemon(true);
+
+          return thread;
+        }, (runnable, executor) -> dropped.incrementAndGet());
+
+    reader = new Thread(this::tail, "stream-cluster");
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+
+    if (writer != null) {
+      writer.shutdown();
+    }
+
+    if (reader != null) {
+      reader.interrupt();
+    }
+
+    if (enabled) {
+      try {
+        getSubscriptions().deleteOne(Filters.eq("_id", nodeId));
+      } catch (RuntimeException e) {
+        log.info("Removing stream subscriptions failed with '{}'.", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Registers the stream service to deliver events of other instances to.
+   *
+   * @param stream Name of the stream, equal on all instances
+   */
+  void register(String stream, EventStreamService<?, ?> service) {
+    services.put(stream, service);
+  }
+
+  /**
+   * @param stream Name of the stream, equal on all instances
+   * @param key Key of the stream group
+   * @return Whether the key has subscribers on another instance.
+   */
+  boolean hasRemoteSubscribers(String stream, String key) {
+    if (!enabled) {
+      return false;
+    }
+
+    Set<String> keys = remoteKeys.get(stream);
+
+    return keys != null && keys.contains(key);
+  }
+
+  /**
+   * Announces the keys subscribed on this instance and loads the keys subscribed on the others.
+   */
+  @Scheduled(fixedDelayString = "${app.streams.cluster.subscriptions-interval-ms:2000}")
+  public void syncSubscriptions() {
+    if (!enabled) {
+      return;
+    }
+
+    long count = dropped.getAndSet(0);
+
+    if (count > 0) {
+      log.warn("Dropped {} stream events exceeding the cluster write queue.", count);
+    }
+
+    try {
+      Document subscribed = new Document();
+      services.forEach((stream, service) -> {
+        Set<String> keys = service.getSubscribedKeys();
+
+        if (!keys.isEmpty()) {
+          subscribed.append(stream, List.copyOf(keys));
+        }
+      });
+
+      getSubscriptions().replaceOne(Filters.eq("_id", nodeId),
+          new Document("_id", nodeId).append(STREAMS, subscribed)
+              .append(UPDATE_MOMENT, LocalDateTime.now()),
+          new ReplaceOptions().upsert(true));
+
+      Map<String, Set<String>> keysByStream = new HashMap<>();
+      LocalDateTime expiry =
+          LocalDateTime.now().minus(3 * subscriptionsInterval, ChronoUnit.MILLIS);
+
+      for (Document node : getSubscriptions().find(
+          Filters.and(Filters.ne("_id", nodeId), Filters.gt(UPDATE_MOMENT, expiry)))) {
+        Document streams = node.get(STREAMS, Document.class);
+
+        for (String stream : streams.keySet()) {
+          keysByStream.computeIfAbsent(stream, k -> new HashSet<>())
+              .addAll(streams.getList(stream, String.class));
+        }
+      }
+
+      remoteKeys = keysByStream;
+    } catch (RuntimeException e) {
+      log.error("Syncing stream subscriptions with error '{}'.", e.getMessage());
+    }
+  }
+
+  /**
+   * Sends the serialized event to the other instances.
+   *
+   * @param stream Name of the stream, equal on all instances
+   * @param key Key of the target stream group
+   * @param event Serialized event
+   */
+  void broadcast(String stream, String key, String event) {
+    if (!enabled) {
+      return;
+    }
+
+    Document document = new Document(NODE, nodeId).append(STREAM, stream).append(KEY, key)
+        .append(EVENT, event).append(CREATE_MOMENT, LocalDateTime.now());
+
+    writer.execute(() -> {
+      try {
+        getCollection().insertOne(document);
+      } catch (RuntimeException e) {
+        log.error("Broadcasting event for key {} with error '{}'.", key, e.getMessage());
+      }
+    });
+  }
+
+  private void createCollection() {
+    if (mongoTemplate.collectionExists(COLLECTION)) {
+      return;
+    }
+
+    try {
+      mongoTemplate.createCollection(COLLECTION,
+          CollectionOptions.empty().capped().size(collectionSizeMb * 1024 * 1024));
+    } catch (RuntimeException e) {
+      // Another instance may have created it in the meantime.
+      log.info("Creating collection {} failed with '{}'.", COLLECTION, e.getMessage());
+    }
+  }
+
+  /**
+   * <p>
+   * Tails the collection, starting after the latest event. Cursors on empty collections or of
+   * interrupted connections are reopened after the last received event.
+   * </p>
+   *
+   * <p>
+   * IDs generated on instances with differing clocks do not follow the insertion order, so reopened
+   * cursors read the collection in insertion order and skip the events up to the last received one
+   * instead of filtering by ID. If that event was overwritten already, all kept events are newer.
+   * If it is overwritten while skipping, the cursor fails as its position is lost and is reopened.
+   * </p>
+   */
+  private void tail() {
+    Document latest = getCollection().find().sort(Sorts.descending("$natural")).limit(1).first();
+    ObjectId lastId = latest == null ? null : latest.getObjectId("_id");
+
+    while (running) {
+      try (MongoCursor<Document> cursor =
+          getCollection().find().cursorType(CursorType.TailableAwait).iterator()) {
+        boolean skipping =
+            lastId != null && getCollection().find(Filters.eq("_id", lastId)).first() != null;
+
+        while (running && cursor.hasNext()) {
+          Document document = cursor.next();
+          ObjectId id = document.getObjectId("_id");
+
+          if (skipping) {
+            skipping = !id.equals(lastId);
+            continue;
+          }
+
+          lastId = id;
+
+          deliver(document);
+        }
+      } catch (RuntimeException e) {
+        if (running) {
+          log.error("Tailing stream events with error '{}'.", e.getMessage());
+        }
+      }
+
+      try {
+        Thread.sleep(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void deliver(Document document) {
+    if (nodeId.equals(document.getString(NODE))) {
+      return;
+    }
+
+    EventStreamService<?, ?> service = services.get(document.getString(STREAM));
+
+    if (service != null) {
+      service.deliverRemote(document.getString(KEY), document.getString(EVENT));
+    }
+  }
+
+  private MongoCollection<Document> getCollection() {
+    return mongoTemplate.getCollection(COLLECTION);
+  }
+
+  private MongoCollection<Document> getSubscriptions() {
+    return mongoTemplate.getCollection(SUBSCRIPTIONS_COLLECTION);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Bounded thread pool draining the subscriber queues of all {@link EventStreamService}s. It is
+ * separate from the application task executor, so clients blocking the sends of their events do
+ * not starve {@code @Async} tasks.
+ * </p>
+ *
+ * <p>
+ * With virtual threads enabled, each draining subscriber gets its own virtual thread instead, so a
+ * slow client only blocks a cheap virtual thread. The queue capacity then limits the number of
+ * concurrently draining subscribers.
+ * </p>
+ *
+ * <p>
+ * It is deliberately not an {@link java.util.concurrent.Executor} bean, which would replace the
+ * auto-configured task executor.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class StreamExecutor {
+
+  private final @NonNull Environment environment;
+
+  /**
+   * Number of platform threads sending events to subscribers, 0 to send on the publishing thread.
+   */
+  @Value("${app.streams.executor.threads:8}")
+  private int threads;
+
+  /**
+   * Maximum number of subscribers waiting for a thread to drain their queue, or draining it on a
+   * virtual thread.
+   */
+  @Value("${app.streams.executor.queue-capacity:10000}")
+  private int queueCapacity;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  public void init() {
+    if (threads <= 0) {
+      return;
+    }
+
+    if (Threading.VIRTUAL.isActive(environment)) {
+      executor = new ThreadPoolExecutor(0, queueCapacity, 60, TimeUnit.SECONDS,
+          new SynchronousQueue<>(),
+          new VirtualThreadTaskExecutor("stream-sender-").getVirtualThreadFactory());
+      return;
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+
+    executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "stream-sender-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Runs the task on the stream threads.
+   *
+   * @param task Task to run
+   * @throws RejectedExecutionException Thrown if the queue is full.
+   */
+  public void execute(Runnable task) {
+    if (executor == null) {
+      task.run();
+    } else {
+      executor.execute(task);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.model.callbacks;
+
+import java.util.Map;
+import org.bson.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import com.desire.model.entities.AGVCommands;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.AGVPositions;
+import com.desire.model.entities.AGVStatusEvents;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.MobileMeasurements;
+import com.desire.model.entities.Sites;
+import com.desire.model.entities.TuiAGVPositionMessages;
+import com.desire.model.entities.TuiCampaignMessages;
+import com.desire.services.CampaignReferenceService;
+
+/**
+ * <p>
+ * Converts between embedded campaigns and slim campaign references.
+ * </p>
+ *
+ * <p>
+ * If slim campaign references are enabled, the embedded campaign of documents listed in
+ * {@link #CAMPAIGN_PATHS} is replaced by a reference only containing the campaign, site and
+ * organization IDs before saving. The reference keeps the field paths of the full campaign, so
+ * existing queries on {@code campaign._id} or {@code campaign.site.organization._id} still work.
+ * </p>
+ *
+ * <p>
+ * Slim references are always resolved to full campaigns after reading, independent of the current
+ * setting, so collections may contain both formats during migration.
+ * </p>
+ */
+@Component
+public class CampaignReferenceCallback
+    implements BeforeSaveCallback<Object>, AfterConvertCallback<Object> {
+
+  /**
+   * Paths of the embedded campaign per document type. TUI messages are not listed, as they are
+   * snapshots of the campaign at the time they are queued.
+   */
+  public static final Map<Class<?>, String> CAMPAIGN_PATHS = Map.of( //
+      AGVMeasurements.class, "campaign", //
+      AGVPositions.class, "campaign", //
+      AGVCommands.class, "campaign", //
+      MobileMeasurements.class, "campaign", //
+      AGVStatusEvents.class, "command.campaign");
+
+  private final CampaignReferenceService campaignReferenceService;
+
+  // The campaign reference service depends on the campaign repository and thus on the mongo
+  // template using this callback.
+  public CampaignReferenceCallback(@Lazy CampaignReferenceService campaignReferenceService) {
+    this.campaignReferenceService = campaignReferenceService;
+  }
+
+  @Override
+  public Object onBeforeSave(Object entity, Document document, String collection) {
+    String path = CAMPAIGN_PATHS.get(entity.getClass());
+
+    if (path != null && campaignReferenceService.isSlimReferencesEnabled()) {
+      toSlimReference(document, path);
+    }
+
+    return entity;
+  }
+
+  @Override
+  public Object onAfterConvert(Object entity, Document document, String collection) {
+    if (entity instanceof AGVMeasurements measurement) {
+      measurement.setCampaign(campaignReferenceService.resolve(measurement.getCampaign()));
+    } else if (entity instanceof AGVPositions position) {
+      position.setCampaign(campaignReferenceService.resolve(position.getCampaign()));
+    } else if (entity instanceof AGVCommands command) {
+      command.setCampaign(campaignReferenceService.resolve(command.getCampaign()));
+    } else if (entity instanceof MobileMeasurements measurement) {
+      measurement.setCampaign(campaignReferenceService.resolve(measurement.getCampaign()));
+    } else if (entity instanceof TuiCampaignMessages message) {
+      // TUI messages are no longer slimmed, but older queued messages may hold references.
+      message.setCampaign(campaignReferenceService.resolve(message.getCampaign()));
+    } else if (entity instanceof TuiAGVPositionMessages message && message.getPosition() != null) {
+      message.getPosition()
+          .setCampaign(campaignReferenceService.resolve(message.getPosition().getCampaign()));
+    } else if (entity instanceof AGVStatusEvents event && event.getCommand() != null) {
+      event.getCommand()
+          .setCampaign(campaignReferenceService.resolve(event.getCommand().getCampaign()));
+    }
+
+    return entity;
+  }
+
+  /**
+   * Replaces the embedded campaign at the given path with its slim reference.
+   *
+   * @param document Document to modify
+   * @param path Dot separated path of the embedded campaign
+   */
+  public static void toSlimReference(Document document, String path) {
+    String[] segments = path.split("\\.");
+    Document parent = document;
+
+    for (int i = 0; i < segments.length - 1 && parent != null; i++) {
+      parent = parent.get(segments[i], Document.class);
+    }
+
+    String field = segments[segments.length - 1];
+
+    if (parent != null && parent.get(field) instanceof Document campaign) {
+      parent.put(field, toSlimReference(campaign));
+    }
+  }
+
+  /**
+   * @param campaign Embedded campaign document
+   * @return Document only containing the campaign, site and organization IDs.
+   */
+  public static Document toSlimReference(Document campaign) {
+    Document reference = new Document("_id", campaign.get("_id"));
+
+    if (campaign.get(Campaigns.Fields.site) instanceof Document site) {
+      Document siteReference = new Document("_id", site.get("_id"));
+
+      if (site.get(Sites.Fields.organization) instanceof Document organization) {
+        siteReference.put(Sites.Fields.organization, new Document("_id", organization.get("_id")));
+      }
+
+      reference.put(Campaigns.Fields.site, siteReference);
+    }
+
+    return reference;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.model.callbacks;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.MobileMeasurements;
+import com.desire.services.TimeSeriesCollectionService;
+
+/**
+ * Adds the meta field to measurements stored in time-series collections. The meta field only holds
+ * IDs, as MongoDB starts a new bucket for every distinct meta value.
+ */
+@Component
+public class MeasurementMetaCallback implements BeforeSaveCallback<Object> {
+
+  private final TimeSeriesCollectionService timeSeriesCollectionService;
+
+  // The time-series collection service depends on the mongo template using this callback.
+  public MeasurementMetaCallback(@Lazy TimeSeriesCollectionService timeSeriesCollectionService) {
+    this.timeSeriesCollectionService = timeSeriesCollectionService;
+  }
+
+  @Override
+  public Object onBeforeSave(Object entity, Document document, String collection) {
+    if (!timeSeriesCollectionService.isTimeSeries(entity.getClass())) {
+      return entity;
+    }
+
+    if (entity instanceof AGVMeasurements measurement) {
+      document.put(TimeSeriesCollectionService.META_FIELD,
+          toMeta(measurement.getCampaign()).append("agvId", measurement.getAgvId()));
+    } else if (entity instanceof MobileMeasurements measurement) {
+      document.put(TimeSeriesCollectionService.META_FIELD, toMeta(measurement.getCampaign()));
+    }
+
+    return entity;
+  }
+
+  /**
+   * @param campaign Campaign of the measurement, nullable
+   * @return Meta document with the campaign, site and organization IDs.
+   */
+  private static Document toMeta(Campaigns campaign) {
+    Document meta = new Document();
+
+    if (campaign != null) {
+      meta.append("campaignId", campaign.getId());
+
+      if (campaign.getSite() != null) {
+        meta.append("siteId", campaign.getSite().getId());
+
+        if (campaign.getSite().getOrganization() != null) {
+          meta.append("organizationId", campaign.getSite().getOrganization().getId());
+        }
+      }
+    }
+
+    return meta;
+  }
+}
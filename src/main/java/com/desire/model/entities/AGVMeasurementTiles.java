@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.model.entities;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldNameConstants;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Rollup of the AGV measurements of a campaign within one square tile of the site map, maintained
+ * incrementally when measurements are stored.
+ */
+@Data
+@FieldNameConstants
+@Document(collection = "agv_measurement_tiles")
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false, onlyExplicitlyIncluded = true)
+public class AGVMeasurementTiles {
+
+  /**
+   * Campaign ID, tile resolution and tile indexes joined by colons.
+   */
+  @Id
+  @EqualsAndHashCode.Include
+  private String id;
+
+  private String campaignId;
+
+  /**
+   * Edge length of the tile, the site map tile resolution at the time of the measurements.
+   */
+  private float resolution;
+
+  /**
+   * Tile index on the x axis, the tile covers {@code [tileX * resolution, (tileX + 1) *
+   * resolution)}.
+   */
+  private long tileX;
+
+  /**
+   * Tile index on the y axis, the tile covers {@code [tileY * resolution, (tileY + 1) *
+   * resolution)}.
+   */
+  private long tileY;
+
+  private MeasurementStatistics dataRate = new MeasurementStatistics();
+
+  private MeasurementStatistics latency = new MeasurementStatistics();
+
+  private LocalDateTime updateMoment;
+
+  public static String id(String campaignId, float resolution, long tileX, long tileY) {
+    return campaignId + ":" + resolution + ":" + tileX + ":" + tileY;
+  }
+}
@@ -47,9 +47,19 @@ public class AGVMeasurements {
   @QueryInit("site.organization")
   private Campaigns campaign;
 
+  /**
+   * AGV the measurement was taken for.
+   */
+  private String agvId;
+
   @NotNull
   private LocalDateTime createMoment = LocalDateTime.now();
 
+  /**
+   * Copy of the coordinates measure moment, time-series collections require a top-level time field.
+   */
+  private LocalDateTime measureMoment;
+
   private Float dataRate;
 
   private Float latency;
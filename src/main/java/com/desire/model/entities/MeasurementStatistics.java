@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.model.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldNameConstants;
+
+/**
+ * Running statistics of a measurement value, mergeable by adding counts and sums.
+ */
+@Getter
+@Setter
+@ToString
+@FieldNameConstants
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementStatistics {
+
+  private long count;
+
+  private double sum;
+
+  private Double min;
+
+  private Double max;
+
+  private double sumOfSquares;
+
+  public void add(double value) {
+    count++;
+    sum += value;
+    sumOfSquares += value * value;
+    min = min == null ? value : Math.min(min, value);
+    max = max == null ? value : Math.max(max, value);
+  }
+
+  public Double getMean() {
+    return count == 0 ? null : sum / count;
+  }
+
+  /**
+   * @return Population variance of the values or {@code null} without values.
+   */
+  public Double getVariance() {
+    if (count == 0) {
+      return null;
+    }
+
+    double mean = sum / count;
+
+    // Rounding errors may result in slightly negative values for constant values.
+    return Math.max(0, sumOfSquares / count - mean * mean);
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.desire.model.entities;
 
+import com.desire.types.InterpolationEngine;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Positive;
 import java.time.LocalDateTime;
@@ -71,5 +72,8 @@ public class Sites {
   @Schema(description = "Resolution of map tiles to draw, in meters.")
   private Float mapTileResolution = 1f;
 
+  @Schema(description = "Engine for interpolated measurements, the configured default if empty.")
+  private InterpolationEngine interpolationEngine;
+
   private String floorPlanImagePath;
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.model.indexes;
+
+import java.util.List;
+import org.bson.Document;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import com.desire.model.entities.AGVCommands;
+import com.desire.model.entities.AGVMeasurementTiles;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.AGVPositions;
+import com.desire.model.entities.AGVStatusEvents;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.MobileMeasurements;
+import com.desire.model.entities.Sites;
+import com.desire.model.entities.TuiAGVPositionMessages;
+import com.desire.model.entities.TuiCampaignMessages;
+import com.desire.types.AGVCommandState;
+
+/**
+ * <p>
+ * Indexes required by the hot query paths of the repositories and services.
+ * </p>
+ *
+ * <p>
+ * Indexes are declared by their query shape instead of annotations on the entities, so the query
+ * plan of each shape can be verified with {@code explain}. Queries with equality conditions and a
+ * sort use compound indexes with the equality fields first and the sort field last.
+ * </p>
+ */
+public final class IndexedQueries {
+
+  private static final String ID = "_id";
+  private static final String CAMPAIGN_ID = "campaign._id";
+  private static final String ORGANIZATION_ID = "site.organization._id";
+  private static final String CAMPAIGN_ORGANIZATION_ID = "campaign." + ORGANIZATION_ID;
+
+  private static final String EXAMPLE_ID = "";
+
+  private static final List<String> EXAMPLE_STATES =
+      AGVCommands.OPEN_STATES.stream().map(AGVCommandState::name).toList();
+
+  public static final List<IndexedQuery> ALL = List.of(
+      // AGV measurements
+      // Unique key of measurements, used for idempotent writes.
+      new IndexedQuery("agv-measurements-latest-by-campaign", AGVMeasurements.class,
+          new Index().on(CAMPAIGN_ID, Direction.ASC)
+              .on(AGVMeasurements.Fields.measurementId, Direction.DESC),
+          true, new Document(CAMPAIGN_ID, EXAMPLE_ID),
+          new Document(AGVMeasurements.Fields.measurementId, -1)),
+      new IndexedQuery("agv-measurements-search", AGVMeasurements.class,
+          new Index().on(CAMPAIGN_ORGANIZATION_ID, Direction.ASC)
+              .on(AGVMeasurements.Fields.createMoment, Direction.DESC),
+          new Document(CAMPAIGN_ORGANIZATION_ID, EXAMPLE_ID),
+          new Document(AGVMeasurements.Fields.createMoment, -1)),
+
+      // AGV measurement tiles
+      // Range conditions on the tile indexes are used for heatmap tiles.
+      new IndexedQuery("agv-measurement-tiles-by-campaign", AGVMeasurementTiles.class,
+          new Index().on(AGVMeasurementTiles.Fields.campaignId, Direction.ASC)
+              .on(AGVMeasurementTiles.Fields.resolution, Direction.ASC)
+              .on(AGVMeasurementTiles.Fields.tileX, Direction.ASC)
+              .on(AGVMeasurementTiles.Fields.tileY, Direction.ASC),
+          new Document(AGVMeasurementTiles.Fields.campaignId, EXAMPLE_ID)
+              .append(AGVMeasurementTiles.Fields.resolution, 1f)
+              .append(AGVMeasurementTiles.Fields.tileX, new Document("$gte", 0).append("$lt", 64))
+              .append(AGVMeasurementTiles.Fields.tileY, new Document("$gte", 0).append("$lt", 64)),
+          new Document()),
+
+      // AGV positions
+      new IndexedQuery("agv-positions-search", AGVPositions.class,
+          new Index().on(CAMPAIGN_ORGANIZATION_ID, Direction.ASC)
+              .on(AGVPositions.Fields.createMoment, Direction.DESC),
+          new Document(CAMPAIGN_ORGANIZATION_ID, EXAMPLE_ID),
+          new Document(AGVPositions.Fields.createMoment, -1)),
+      new IndexedQuery("agv-positions-search-by-agv", AGVPositions.class,
+          new Index().on(AGVPositions.Fields.agvId, Direction.ASC)
+              .on(AGVPositions.Fields.createMoment, Direction.DESC),
+          new Document(AGVPositions.Fields.agvId, EXAMPLE_ID),
+          new Document(AGVPositions.Fields.createMoment, -1)),
+
+      // AGV commands
+      new IndexedQuery("agv-commands-latest-by-agv", AGVCommands.class,
+          new Index().on(AGVCommands.Fields.agvId, Direction.ASC)
+              .on(AGVCommands.Fields.createMoment, Direction.DESC),
+          new Document(AGVCommands.Fields.agvId, EXAMPLE_ID)
+              .append(AGVCommands.Fields.state, new Document("$in", EXAMPLE_STATES)),
+          new Document(AGVCommands.Fields.createMoment, 1)),
+      new IndexedQuery("agv-commands-search", AGVCommands.class,
+          new Index().on(AGVCommands.Fields.agvId, Direction.ASC)
+              .on(AGVCommands.Fields.measureMoment, Direction.DESC),
+          new Document(AGVCommands.Fields.agvId, EXAMPLE_ID),
+          new Document(AGVCommands.Fields.measureMoment, -1)),
+      new IndexedQuery("agv-commands-latest-sent", AGVCommands.class,
+          new Index().on(AGVCommands.Fields.agvId, Direction.ASC)
+              .on(AGVCommands.Fields.latestSendMoment, Direction.DESC),
+          new Document(AGVCommands.Fields.agvId, EXAMPLE_ID)
+              .append(AGVCommands.Fields.state, new Document("$in", EXAMPLE_STATES))
+              .append(AGVCommands.Fields.latestSendMoment, new Document("$ne", null)),
+          new Document(AGVCommands.Fields.latestSendMoment, -1)),
+      new IndexedQuery("agv-commands-timeout", AGVCommands.class,
+          new Index().on(AGVCommands.Fields.state, Direction.ASC)
+              .on(AGVCommands.Fields.createMoment, Direction.ASC),
+          new Document(AGVCommands.Fields.state, new Document("$in", EXAMPLE_STATES))
+              .append(AGVCommands.Fields.createMoment, new Document("$lt", "")),
+          new Document()),
+
+      // AGV status events
+      new IndexedQuery("agv-status-events-latest-by-agv", AGVStatusEvents.class,
+          new Index().on(AGVStatusEvents.Fields.agvId, Direction.ASC)
+              .on(AGVStatusEvents.Fields.createMoment, Direction.DESC),
+          new Document(AGVStatusEvents.Fields.agvId, EXAMPLE_ID)
+              .append(AGVStatusEvents.Fields.eventType, new Document("$in", List.of(""))),
+          new Document(AGVStatusEvents.Fields.createMoment, -1)),
+      new IndexedQuery("agv-status-events-search", AGVStatusEvents.class,
+          new Index().on(AGVStatusEvents.Fields.agvId, Direction.ASC)
+              .on(AGVStatusEvents.Fields.measureMoment, Direction.DESC),
+          new Document(AGVStatusEvents.Fields.agvId, EXAMPLE_ID),
+          new Document(AGVStatusEvents.Fields.measureMoment, -1)),
+
+      // Campaigns
+      new IndexedQuery("campaigns-search", Campaigns.class,
+          new Index().on(ORGANIZATION_ID, Direction.ASC)
+              .on(Campaigns.Fields.createMoment, Direction.DESC),
+          new Document(ORGANIZATION_ID, EXAMPLE_ID),
+          new Document(Campaigns.Fields.createMoment, -1)),
+      new IndexedQuery("campaigns-by-state", Campaigns.class,
+          new Index().on(Campaigns.Fields.state, Direction.ASC),
+          new Document(Campaigns.Fields.state, EXAMPLE_ID), new Document()),
+      new IndexedQuery("campaigns-updated", Campaigns.class,
+          new Index().on(Campaigns.Fields.updateMoment, Direction.ASC),
+          new Document(Campaigns.Fields.updateMoment, new Document("$gt", "")), new Document()),
+      configurationQuery("agvId"),
+      configurationQuery("clientId"),
+      configurationQuery("endpointId"),
+
+      // Mobile measurements
+      new IndexedQuery("mobile-measurements-search", MobileMeasurements.class,
+          new Index().on(CAMPAIGN_ORGANIZATION_ID, Direction.ASC)
+              .on(MobileMeasurements.Fields.measureMoment, Direction.DESC),
+          new Document(CAMPAIGN_ORGANIZATION_ID, EXAMPLE_ID),
+          new Document(MobileMeasurements.Fields.measureMoment, -1)),
+
+      // Sites
+      new IndexedQuery("sites-search", Sites.class,
+          new Index().on("organization._id", Direction.ASC)
+              .on(Sites.Fields.createMoment, Direction.DESC),
+          new Document("organization._id", EXAMPLE_ID),
+          new Document(Sites.Fields.createMoment, -1)),
+
+      // TUI message queues
+      new IndexedQuery("tui-campaign-messages-queue", TuiCampaignMessages.class,
+          new Index().on(TuiCampaignMessages.Fields.createMoment, Direction.ASC), new Document(),
+          new Document(TuiCampaignMessages.Fields.createMoment, 1)),
+      new IndexedQuery("tui-campaign-messages-by-campaign", TuiCampaignMessages.class,
+          new Index().on(CAMPAIGN_ID, Direction.ASC), new Document(CAMPAIGN_ID, EXAMPLE_ID),
+          new Document()),
+      new IndexedQuery("tui-agv-position-messages-queue", TuiAGVPositionMessages.class,
+          new Index().on(TuiAGVPositionMessages.Fields.createMoment, Direction.ASC),
+          new Document(), new Document(TuiAGVPositionMessages.Fields.createMoment, 1)),
+      new IndexedQuery("tui-agv-position-messages-by-position", TuiAGVPositionMessages.class,
+          new Index().on("position." + ID, Direction.ASC),
+          new Document("position." + ID, EXAMPLE_ID), new Document()));
+
+  private IndexedQueries() {}
+
+  /**
+   * Partial index for checks if a configuration value is used by a campaign in a given state, only
+   * containing campaigns with the configuration value set.
+   */
+  private static IndexedQuery configurationQuery(String field) {
+    String path = Campaigns.Fields.configurations + "." + field;
+
+    return new IndexedQuery("campaigns-by-configuration-" + field, Campaigns.class,
+        new Index().on(path, Direction.ASC).on(Campaigns.Fields.state, Direction.ASC)
+            .partial(PartialIndexFilter.of(Criteria.where(path).exists(true))),
+        new Document(path, EXAMPLE_ID).append(Campaigns.Fields.state, EXAMPLE_ID),
+        new Document());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.model.indexes;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Query shape of a repository or QueryDSL query together with the index serving it.
+ *
+ * @param name Unique name of the query shape
+ * @param entityClass Entity class determining the collection
+ * @param index Index serving the query
+ * @param unique {@code true} if the index enforces unique keys, not supported by time-series
+ *        collections where the index is created without the constraint
+ * @param filter Example filter of the query, values are irrelevant for the query plan
+ * @param sort Sort of the query
+ */
+public record IndexedQuery(String name, Class<?> entityClass, Index index, boolean unique,
+    Document filter, Document sort) {
+
+  public IndexedQuery(String name, Class<?> entityClass, Index index, Document filter,
+      Document sort) {
+    this(name, entityClass, index, false, filter, sort);
+  }
+}
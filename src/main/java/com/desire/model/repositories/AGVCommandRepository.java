@@ -23,7 +23,6 @@ import java.util.Set;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import com.desire.model.entities.AGVCommands;
-import com.desire.model.entities.Campaigns;
 import com.desire.types.AGVCommandState;
 
 public interface AGVCommandRepository
@@ -53,6 +52,6 @@ public interface AGVCommandRepository
 
   List<AGVCommands> findByAgvIdAndStateIn(String agvId, Set<AGVCommandState> states);
 
-  List<AGVCommands> findByAgvIdAndCampaignAndStateIn(String agvId, Campaigns campaign,
+  List<AGVCommands> findByAgvIdAndCampaignIdAndStateIn(String agvId, String campaignId,
       Set<AGVCommandState> states);
 }
@@ -16,6 +16,7 @@
 
 package com.desire.model.repositories;
 
+import java.util.Optional;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import com.desire.model.entities.AGVPositions;
@@ -23,4 +24,5 @@ import com.desire.model.entities.AGVPositions;
 public interface AGVPositionRepository
     extends MongoRepository<AGVPositions, String>, QuerydslPredicateExecutor<AGVPositions> {
 
+  Optional<AGVPositions> findFirstByAgvIdOrderByCreateMomentDesc(String agvId);
 }
@@ -36,4 +36,6 @@ public interface CampaignRepository
 
   boolean existsByStateAndConfigurationsAgvId(CampaignState state, String agvId);
 
+  List<Campaigns> findByConfigurationsAgvId(String agvId);
+
 }
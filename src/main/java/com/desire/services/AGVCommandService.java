@@ -220,7 +220,8 @@ public class AGVCommandService {
 
       // Cancel all other pending commands for the AGV and the given campaign without sending them
       // to the AGV.
-      agvCommandDao.findByAgvIdAndCampaignAndStateIn(agvId, campaign, AGVCommands.PENDING_STATES)
+      agvCommandDao
+          .findByAgvIdAndCampaignIdAndStateIn(agvId, campaign.getId(), AGVCommands.PENDING_STATES)
           .forEach(this::setCommandAborted);
     } else {
       log.info("Aborting all commands for AGV {}.", agvId);
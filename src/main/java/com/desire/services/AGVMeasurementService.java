@@ -16,17 +16,33 @@
 
 package com.desire.services;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.domain.Page;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -34,21 +50,34 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import com.desire.constants.Endpoints.TUI;
 import com.desire.dtos.AGVUpdateDto;
+import com.desire.dtos.PostAGVMeasurementBatchResponse;
 import com.desire.dtos.PostAGVMeasurementRequest;
 import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
+import com.desire.dtos.PostAGVMeasurementResponse;
 import com.desire.dtos.SearchAGVMeasurementRequest;
 import com.desire.events.AGVStreamService;
+import com.desire.events.HeatmapStreamService;
+import com.desire.model.callbacks.CampaignReferenceCallback;
+import com.desire.model.entities.AGVMeasurementTiles;
 import com.desire.model.entities.AGVMeasurements;
 import com.desire.model.entities.AGVMeasurements.Fields;
 import com.desire.model.entities.Campaigns;
-import com.desire.model.entities.Campaigns.Configuration;
 import com.desire.model.entities.QAGVMeasurements;
 import com.desire.model.repositories.AGVMeasurementRepository;
 import com.desire.model.repositories.CampaignRepository;
 import com.desire.utils.UserSession;
+import com.desire.validations.Validation;
 import com.desire.validations.exceptions.ValidationException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.nimbusds.oauth2.sdk.util.StringUtils;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.DateTimePath;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -59,19 +88,39 @@ import lombok.extern.slf4j.Slf4j;
 public class AGVMeasurementService {
 
   private final @NonNull AGVMeasurementRepository measurementDao;
+  private final @NonNull AGVMeasurementTileService measurementTileService;
   private final @NonNull AGVMeasurementValidationService measurementValidationService;
+  private final @NonNull AGVMeasurementWatermarkService watermarkService;
   private final @NonNull AGVStreamService agvStreamService;
+  private final @NonNull CampaignConfigurationIndexService configurationIndexService;
+  private final @NonNull CampaignReferenceService campaignReferenceService;
   private final @NonNull CampaignRepository campaignDao;
+  private final @NonNull HeatmapStreamService heatmapStreamService;
+  private final @NonNull HeatmapTileService heatmapTileService;
+  private final @NonNull InterpolatedMeasurementsCacheService interpolatedMeasurementsCacheService;
+  private final @NonNull MongoTemplate mongoTemplate;
+  private final @NonNull ObjectMapper objectMapper;
   private final @NonNull RestTemplate restTemplate;
   private final @NonNull RestTemplate restTemplateShortTimeout;
+  private final @NonNull TimeSeriesCollectionService timeSeriesCollectionService;
 
   @Value("${TUI_BACKEND_URL}" + TUI.CAMPAIGN_RESULTS)
   private String tuiBackendUrl;
 
+  /**
+   * Maximum number of measurements written in a single bulk insert by the streaming ingestion.
+   */
+  @Value("${app.agv-measurements.ingest-batch-size:1000}")
+  private int ingestBatchSize;
+
+  private static final String CAMPAIGN_ID = Fields.campaign + "._id";
+
+  private static final int DUPLICATE_KEY_ERROR = 11000;
+
   /**
    * Measurements with z value of -100 are not considered valid.
    */
-  private static final float INVALID_THRESHOLD = -100f;
+  static final float INVALID_THRESHOLD = -100f;
 
   public static final ParameterizedTypeReference<List<PostAGVMeasurementValueRequest>> REQUEST_TYPE =
       new ParameterizedTypeReference<>() {};
@@ -89,15 +138,29 @@ public class AGVMeasurementService {
     }
 
     if (StringUtils.isNotBlank(request.getAgvId())) {
-      query.and(qMeasurement.campaign.configurations.any().agvId.eq(request.getAgvId()));
+      if (campaignReferenceService.isSlimReferencesEnabled()) {
+        // Slim campaign references do not contain the configurations, so filter by the IDs of the
+        // campaigns the AGV is configured for.
+        List<String> campaignIds = campaignDao.findByConfigurationsAgvId(request.getAgvId())
+            .stream().map(Campaigns::getId).toList();
+
+        query.and(qMeasurement.campaign.id.in(campaignIds));
+      } else {
+        query.and(qMeasurement.campaign.configurations.any().agvId.eq(request.getAgvId()));
+      }
     }
 
+    // Time-series collections only prune buckets by the top-level time field.
+    DateTimePath<LocalDateTime> measureMoment =
+        timeSeriesCollectionService.isTimeSeries(AGVMeasurements.class) ? qMeasurement.measureMoment
+            : qMeasurement.coordinates.measureMoment;
+
     if (request.getFrom() != null) {
-      query.and(qMeasurement.coordinates.measureMoment.goe(request.getFrom()));
+      query.and(measureMoment.goe(request.getFrom()));
     }
 
     if (request.getTo() != null) {
-      query.and(qMeasurement.coordinates.measureMoment.loe(request.getTo()));
+      query.and(measureMoment.loe(request.getTo()));
     }
 
     query.and(qMeasurement.coordinates.z.gt(INVALID_THRESHOLD));
@@ -105,31 +168,327 @@ public class AGVMeasurementService {
     return measurementDao.findAll(query, request.getPage(Fields.createMoment));
   }
 
-  public List<AGVMeasurements> post(PostAGVMeasurementRequest request) throws ValidationException {
-    measurementValidationService.validatePost(request);
+  public PostAGVMeasurementResponse post(PostAGVMeasurementRequest request)
+      throws ValidationException {
+    Campaigns campaign = measurementValidationService.validatePost(request);
+
+    WriteResult result = write(
+        request.getValues().stream().map(requestValue -> requestValue.toEntity(campaign)).toList());
+
+    if (!result.errors().isEmpty()) {
+      log.error("Failed to write AGV measurements for campaign {}: {}", campaign.getId(),
+          result.errors());
+    }
+
+    PostAGVMeasurementResponse response = new PostAGVMeasurementResponse();
+    response.setInserted(result.inserted().size());
+    response.setSkipped(result.skipped());
+    response.setMeasurements(result.inserted());
+
+    return response;
+  }
+
+  /**
+   * <p>
+   * Ingests a stream of measurement values for the given campaign. The stream is expected to
+   * contain JSON objects separated by new lines (NDJSON), a single JSON array of objects is
+   * accepted as well.
+   * </p>
+   *
+   * <p>
+   * Values are parsed one by one and written to the DB in unordered bulk inserts of at most
+   * {@link #ingestBatchSize} rows, so only a single batch is held in memory at any time. Invalid
+   * rows are rejected individually and reported in the acknowledgement of their batch.
+   * </p>
+   *
+   * <p>
+   * If a row is not valid JSON, the rows read before it are written and acknowledged, followed by
+   * a last acknowledgement with the number of the failed row. The rest of the stream is not read.
+   * </p>
+   *
+   * @param campaign Campaign to ingest measurements for
+   * @param inputStream Stream of measurement values
+   * @param acknowledgementConsumer Receives one acknowledgement per written batch
+   * @throws IOException Thrown if the stream cannot be read.
+   */
+  public void ingest(Campaigns campaign, InputStream inputStream,
+      Consumer<PostAGVMeasurementBatchResponse> acknowledgementConsumer) throws IOException {
+    LocalDateTime startTime = LocalDateTime.now();
+
+    int batchNumber = 1;
+    int totalRows = 0;
+
+    List<AGVMeasurements> measurements = new ArrayList<>(ingestBatchSize);
+    PostAGVMeasurementBatchResponse acknowledgement =
+        new PostAGVMeasurementBatchResponse(batchNumber);
+    JsonProcessingException parseError = null;
+
+    try (JsonParser parser = objectMapper.createParser(inputStream)) {
+      JsonToken token;
+
+      while ((token = parser.nextToken()) != null) {
+        // Values may be wrapped in a single JSON array.
+        if (token != JsonToken.START_OBJECT) {
+          continue;
+        }
+
+        // Read the row as tree first so a mapping error does not leave the parser mid-object.
+        JsonNode node = objectMapper.readTree(parser);
+
+        totalRows++;
+        acknowledgement.setReceived(acknowledgement.getReceived() + 1);
+
+        AGVMeasurements measurement = toMeasurement(campaign, node, acknowledgement);
+
+        if (measurement != null) {
+          measurements.add(measurement);
+        }
+
+        if (acknowledgement.getReceived() >= ingestBatchSize) {
+          writeBatch(measurements, acknowledgement);
+          acknowledgementConsumer.accept(acknowledgement);
+
+          measurements.clear();
+          acknowledgement = new PostAGVMeasurementBatchResponse(++batchNumber);
+        }
+      }
+    } catch (JsonProcessingException e) {
+      parseError = e;
+    }
+
+    if (acknowledgement.getReceived() > 0) {
+      writeBatch(measurements, acknowledgement);
+      acknowledgementConsumer.accept(acknowledgement);
+    } else {
+      batchNumber--;
+    }
+
+    if (parseError != null) {
+      int failedRow = totalRows + 1;
+
+      PostAGVMeasurementBatchResponse failure = new PostAGVMeasurementBatchResponse(++batchNumber);
+      failure.setFailedRow(failedRow);
+      failure.getErrors().add("Row " + failedRow + ": " + parseError.getOriginalMessage());
+      acknowledgementConsumer.accept(failure);
+
+      log.warn("Ingesting AGV measurements for campaign {} stopped at invalid row {}.",
+          campaign.getId(), failedRow);
+    }
+
+    log.info("Ingested {} AGV measurements for campaign {} in {} batches in {}.", totalRows,
+        campaign.getId(), batchNumber, Duration.between(startTime, LocalDateTime.now()));
+  }
+
+  /**
+   * Converts the measurement value of a row to an entity.
+   *
+   * @return Measurement entity or {@code null} if the value is invalid.
+   */
+  private AGVMeasurements toMeasurement(Campaigns campaign, JsonNode node,
+      PostAGVMeasurementBatchResponse acknowledgement) {
+    try {
+      PostAGVMeasurementValueRequest value =
+          objectMapper.treeToValue(node, PostAGVMeasurementValueRequest.class);
+
+      Validation validation = measurementValidationService.validateValue(campaign, value);
+
+      if (validation.hasErrors()) {
+        acknowledgement.setRejected(acknowledgement.getRejected() + 1);
+        acknowledgement.getErrors()
+            .add(value.getMeasurementId() + ": " + validation.getErrors());
 
-    Optional<Campaigns> campaign = campaignDao.findById(request.getCampaignId());
+        return null;
+      }
+
+      return value.toEntity(campaign);
+    } catch (JsonProcessingException e) {
+      acknowledgement.setRejected(acknowledgement.getRejected() + 1);
+      acknowledgement.getErrors().add(e.getOriginalMessage());
 
-    List<AGVMeasurements> measurements =
-        campaign
-            .map(campaigns -> measurementDao.saveAll(request.getValues().stream()
-                .map(requestValue -> requestValue.toEntity(campaigns)).toList()))
-            .orElseGet(List::of);
+      return null;
+    }
+  }
 
-    publishToAgvStreams(measurements);
+  private void writeBatch(List<AGVMeasurements> measurements,
+      PostAGVMeasurementBatchResponse acknowledgement) {
+    WriteResult result = write(measurements);
+
+    acknowledgement.setInserted(result.inserted().size());
+    acknowledgement.setSkipped(result.skipped());
+    acknowledgement.setRejected(acknowledgement.getRejected() + result.errors().size());
+    acknowledgement.getErrors().addAll(result.errors());
+  }
+
+  /**
+   * <p>
+   * Writes measurements idempotently in a single unordered bulk operation, adds the inserted ones
+   * to the measurement tiles and publishes them to the AGV streams.
+   * </p>
+   *
+   * <p>
+   * Duplicates within the given measurements are dropped before writing. Each remaining measurement
+   * is upserted on its unique campaign ID and measurement ID with {@code $setOnInsert}, so
+   * measurements already stored are left untouched and counted as skipped without reading them
+   * first.
+   * </p>
+   *
+   * <p>
+   * Time-series collections support neither unique indexes nor upserts, so measurements are
+   * inserted after filtering out stored measurement IDs of the batch instead.
+   * </p>
+   */
+  private WriteResult write(List<AGVMeasurements> measurements) {
+    Map<String, AGVMeasurements> uniqueMeasurements = new LinkedHashMap<>();
+
+    for (AGVMeasurements measurement : measurements) {
+      uniqueMeasurements.putIfAbsent(
+          measurement.getCampaign().getId() + ":" + measurement.getMeasurementId(), measurement);
+    }
+
+    boolean timeSeries = timeSeriesCollectionService.isTimeSeries(AGVMeasurements.class);
+
+    List<AGVMeasurements> candidates = timeSeries ? withoutStored(uniqueMeasurements.values())
+        : new ArrayList<>(uniqueMeasurements.values());
+
+    List<String> errors = new ArrayList<>();
+
+    if (candidates.isEmpty()) {
+      return new WriteResult(List.of(), measurements.size(), errors);
+    }
+
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, AGVMeasurements.class);
+
+    for (AGVMeasurements measurement : candidates) {
+      if (timeSeries) {
+        bulkOperations.insert(measurement);
+      } else {
+        bulkOperations.upsert(
+            Query.query(Criteria.where(CAMPAIGN_ID).is(measurement.getCampaign().getId())
+                .and(Fields.measurementId).is(measurement.getMeasurementId())),
+            insertOnly(measurement));
+      }
+    }
+
+    BulkWriteResult result;
+    Set<Integer> failedIndexes = new HashSet<>();
+
+    try {
+      result = bulkOperations.execute();
+    } catch (BulkOperationException e) {
+      result = e.getResult();
+
+      for (BulkWriteError error : e.getErrors()) {
+        failedIndexes.add(error.getIndex());
+
+        // Concurrent upserts of the same measurement fail on the unique index, the measurement is
+        // stored anyway.
+        if (error.getCode() != DUPLICATE_KEY_ERROR) {
+          errors.add(candidates.get(error.getIndex()).getMeasurementId() + ": "
+              + error.getMessage());
+        }
+      }
+    }
+
+    List<AGVMeasurements> insertedMeasurements = new ArrayList<>();
+
+    if (timeSeries) {
+      for (int i = 0; i < candidates.size(); i++) {
+        if (!failedIndexes.contains(i)) {
+          insertedMeasurements.add(candidates.get(i));
+        }
+      }
+    } else {
+      result.getUpserts()
+          .forEach(upsert -> insertedMeasurements.add(candidates.get(upsert.getIndex())));
+    }
+
+    insertedMeasurements.stream()
+        .collect(Collectors.groupingBy(measurement -> measurement.getCampaign().getId(),
+            Collectors.summarizingLong(AGVMeasurements::getMeasurementId)))
+        .forEach((campaignId, ids) -> {
+          watermarkService.advance(campaignId, ids.getMax());
+          interpolatedMeasurementsCacheService.evict(campaignId);
+        });
+
+    try {
+      Collection<AGVMeasurementTiles> tiles =
+          measurementTileService.accumulate(insertedMeasurements);
+
+      heatmapTileService.evict(tiles);
+      heatmapStreamService.markChanged(tiles);
+    } catch (RuntimeException e) {
+      // Measurements are stored already, missing them in the tiles must not fail the write.
+      log.error("Failed to accumulate measurement tiles: {}", e.getMessage());
+
+      markTilesForRebuild(insertedMeasurements);
+    }
+
+    publishToAgvStreams(insertedMeasurements);
+
+    return new WriteResult(insertedMeasurements,
+        measurements.size() - insertedMeasurements.size() - errors.size(), errors);
+  }
+
+  /**
+   * @return Update setting all fields of the measurement if it is inserted.
+   */
+  private Update insertOnly(AGVMeasurements measurement) {
+    Document document = new Document();
+    mongoTemplate.getConverter().write(measurement, document);
+
+    // Entity callbacks are not invoked for upserts.
+    if (campaignReferenceService.isSlimReferencesEnabled()) {
+      CampaignReferenceCallback.toSlimReference(document, Fields.campaign);
+    }
+
+    Update update = new Update();
+    document.forEach(update::setOnInsert);
+
+    return update;
+  }
+
+  /**
+   * @return Measurements whose measurement IDs are not stored for their campaign yet.
+   */
+  private List<AGVMeasurements> withoutStored(Collection<AGVMeasurements> measurements) {
+    Map<String, List<AGVMeasurements>> campaignMeasurements = measurements.stream()
+        .collect(Collectors.groupingBy(measurement -> measurement.getCampaign().getId()));
+
+    List<AGVMeasurements> result = new ArrayList<>();
+
+    campaignMeasurements.forEach((campaignId, values) -> {
+      Query query = Query.query(Criteria.where(CAMPAIGN_ID).is(campaignId).and(Fields.measurementId)
+          .in(values.stream().map(AGVMeasurements::getMeasurementId).toList()));
+      query.fields().include(Fields.measurementId);
+
+      Set<Long> storedIds = mongoTemplate.find(query, AGVMeasurements.class).stream()
+          .map(AGVMeasurements::getMeasurementId).collect(Collectors.toSet());
+
+      values.stream().filter(value -> !storedIds.contains(value.getMeasurementId()))
+          .forEach(result::add);
+    });
+
+    return result;
+  }
+
+  /**
+   * @param inserted Measurements written to the DB
+   * @param skipped Number of duplicate measurements
+   * @param errors Errors of measurements that could not be written
+   */
+  private record WriteResult(List<AGVMeasurements> inserted, int skipped, List<String> errors) {
 
-    return measurements;
   }
 
   public void pullData(Campaigns campaign, boolean offlineSync) {
 
-    Optional<AGVMeasurements> latestMeasurement =
-        measurementDao.findFirstByCampaignIdOrderByMeasurementIdDesc(campaign.getId());
+    OptionalLong latestMeasurementId = watermarkService.get(campaign.getId());
 
     String requestUrl = tuiBackendUrl + "?campaignId=" + campaign.getId();
 
-    if (latestMeasurement.isPresent()) {
-      long startId = latestMeasurement.get().getMeasurementId() + 1;
+    if (latestMeasurementId.isPresent()) {
+      long startId = latestMeasurementId.getAsLong() + 1;
 
       requestUrl += "&fromId=" + startId;
 
@@ -169,7 +528,10 @@ public class AGVMeasurementService {
     request.setValues(message);
 
     try {
-      post(request);
+      PostAGVMeasurementResponse response = post(request);
+
+      log.info("Pulled AGV measurements for campaign {}: {} inserted, {} skipped.",
+          campaign.getId(), response.getInserted(), response.getSkipped());
     } catch (ValidationException validationException) {
       log.error("Validation error in AGV measurements for campaign {}: {}", campaign.getId(),
           validationException.getValidation().getErrors());
@@ -188,26 +550,39 @@ public class AGVMeasurementService {
     }
   }
 
+  /**
+   * Marks the tiles of the campaigns of the measurements for a rebuild, as they miss measurements.
+   */
+  private void markTilesForRebuild(List<AGVMeasurements> measurements) {
+    Set<String> campaignIds = measurements.stream()
+        .map(measurement -> measurement.getCampaign().getId()).collect(Collectors.toSet());
+
+    try {
+      measurementTileService.markForRebuild(campaignIds);
+    } catch (RuntimeException e) {
+      log.error("Failed to mark measurement tiles of campaigns {} for rebuild: {}", campaignIds,
+          e.getMessage());
+    }
+  }
+
   private void publishToAgvStreams(List<AGVMeasurements> measurements) {
     Map<String, List<AGVMeasurements>> groupedMeasurements = new HashMap<>();
 
+    CampaignConfigurationIndex index = null;
+
     for (AGVMeasurements measurement : measurements) {
       if (measurement.getCoordinates() != null
           && measurement.getCoordinates().getZ() <= INVALID_THRESHOLD) {
         continue;
       }
 
-      Set<String> agvIds = measurement.getCampaign().getConfigurations().stream()
-          .map(Configuration::getAgvId).collect(Collectors.toSet());
-
-      for (String agvId : agvIds) {
-        groupedMeasurements.putIfAbsent(agvId, new ArrayList<>());
-
-        List<AGVMeasurements> agvMeasurements = groupedMeasurements.get(agvId);
-
-        agvMeasurements.add(measurement);
+      // Measurements of a batch usually belong to the same campaign.
+      if (index == null || !index.isCurrent(measurement.getCampaign())) {
+        index = configurationIndexService.get(measurement.getCampaign());
+      }
 
-        groupedMeasurements.put(agvId, agvMeasurements);
+      for (String agvId : index.getRoutedAgvIds()) {
+        groupedMeasurements.computeIfAbsent(agvId, key -> new ArrayList<>()).add(measurement);
       }
     }
 
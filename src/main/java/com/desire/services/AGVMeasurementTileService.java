@@ -0,0 +1,491 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.services;
+
+import com.desire.dtos.GetMeasurementTileStatsResponse;
+import com.desire.model.entities.AGVMeasurementTiles;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Coordinates;
+import com.desire.model.entities.MeasurementStatistics;
+import com.desire.model.entities.Sites;
+import com.desire.model.repositories.AGVMeasurementTileRepository;
+import com.desire.model.repositories.SiteRepository;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * Maintains per-tile rollups of the AGV measurements of each campaign, so heatmaps can be read
+ * without scanning the measurements.
+ * </p>
+ *
+ * <p>
+ * Measurements are folded into tiles of the current map tile resolution of the site in memory
+ * first, then each touched tile is updated with a single {@code $inc}/{@code $min}/{@code $max}
+ * upsert. Only newly stored measurements must be accumulated, otherwise they are counted twice.
+ * </p>
+ *
+ * <p>
+ * The tiles of a campaign are rebuilt from its stored measurements if they were never built, e.g.
+ * for measurements stored before tiles existed, if accumulating failed or if the resolution of the
+ * site changed. The build state of each campaign is recorded in {@link #BUILDS_COLLECTION}, so
+ * rebuilds are coordinated across instances:
+ * </p>
+ *
+ * <ol>
+ * <li>An instance claims the rebuild by atomically marking the build as rebuilding, with a lease
+ * that other instances take over once it expired.</li>
+ * <li>While a campaign is rebuilt, new measurements are not added to its tiles but their IDs are
+ * recorded in the build.</li>
+ * <li>After the grace period, all measurements created before the claim are stored and measurements
+ * added to the tiles before the claim are written. The tiles are replaced by tiles of these
+ * measurements.</li>
+ * <li>The build is atomically marked as complete and the recorded measurements created after the
+ * claim are added.</li>
+ * </ol>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AGVMeasurementTileService {
+
+  private static final float DEFAULT_RESOLUTION = 1f;
+
+  /**
+   * Build state per campaign ID.
+   */
+  static final String BUILDS_COLLECTION = "agv_measurement_tile_builds";
+
+  private static final String CAMPAIGN_ID = AGVMeasurements.Fields.campaign + "._id";
+
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private static final String STATE = "state";
+  private static final String REBUILDING = "REBUILDING";
+  private static final String COMPLETE = "COMPLETE";
+  private static final String OWNER = "owner";
+  private static final String LEASE_UNTIL = "leaseUntil";
+  private static final String CLAIM_MOMENT = "claimMoment";
+  private static final String DEFERRED = "deferred";
+  private static final String RESOLUTION = "resolution";
+
+  private final @NonNull AGVMeasurementTileRepository tileDao;
+  private final @NonNull MongoTemplate mongoTemplate;
+  private final @NonNull SiteRepository siteDao;
+
+  /**
+   * Duration a claimed rebuild is reserved for the claiming instance without progress.
+   */
+  @Value("${app.heatmap.rebuild.lease-ms:300000}")
+  private long lease;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  /**
+   * IDs of the campaigns marked for a rebuild, also kept in memory in case the DB is unavailable.
+   */
+  private final Set<String> markedCampaignIds = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Adds the measurements to the tiles of their campaigns. Measurements without coordinates or
+   * with invalid z values are ignored. Measurements of campaigns whose tiles are rebuilt are
+   * recorded to be added by the rebuild.
+   *
+   * @return Tiles touched by the measurements, holding only the added statistics.
+   */
+  public Collection<AGVMeasurementTiles> accumulate(Collection<AGVMeasurements> measurements) {
+    Map<String, List<AGVMeasurements>> measurementsByCampaign = measurements.stream()
+        .collect(Collectors.groupingBy(measurement -> measurement.getCampaign().getId()));
+
+    List<AGVMeasurements> accumulated = new ArrayList<>(measurements.size());
+
+    measurementsByCampaign.forEach((campaignId, campaignMeasurements) -> {
+      UpdateResult result = getBuilds().updateOne(
+          Filters.and(Filters.eq("_id", campaignId), Filters.eq(STATE, REBUILDING)),
+          Updates.pushEach(DEFERRED,
+              campaignMeasurements.stream().map(AGVMeasurements::getId).toList()));
+
+      if (result.getMatchedCount() == 0) {
+        accumulated.addAll(campaignMeasurements);
+      }
+    });
+
+    return addToTiles(accumulated);
+  }
+
+  /**
+   * Marks the tiles of the campaigns as incomplete, so they are rebuilt. Running rebuilds of the
+   * campaigns are aborted.
+   */
+  public void markForRebuild(Collection<String> campaignIds) {
+    markedCampaignIds.addAll(campaignIds);
+
+    getBuilds().deleteMany(Filters.in("_id", campaignIds));
+  }
+
+  /**
+   * @return IDs of the campaigns whose tiles must be rebuilt or are being rebuilt.
+   */
+  public Set<String> findCampaignIdsToRebuild() {
+    Map<String, Float> resolutions = new HashMap<>();
+
+    for (Document site : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Sites.class))
+        .find().projection(Projections.include(Sites.Fields.mapTileResolution))) {
+      resolutions.put(site.getString("_id"),
+          getResolution(site.get(Sites.Fields.mapTileResolution, Number.class)));
+    }
+
+    Map<String, Float> campaignResolutions = new HashMap<>();
+
+    for (Document campaign : mongoTemplate
+        .getCollection(mongoTemplate.getCollectionName(Campaigns.class)).find()
+        .projection(Projections.include(Campaigns.Fields.site + "._id"))) {
+      Document site = campaign.get(Campaigns.Fields.site, Document.class);
+
+      campaignResolutions.put(campaign.getString("_id"),
+          site == null ? DEFAULT_RESOLUTION
+              : resolutions.getOrDefault(site.getString("_id"), DEFAULT_RESOLUTION));
+    }
+
+    Set<String> campaignIds = new HashSet<>(campaignResolutions.keySet());
+
+    for (Document build : getBuilds().find(Filters.eq(STATE, COMPLETE))) {
+      Float resolution = campaignResolutions.get(build.getString("_id"));
+      Number builtResolution = build.get(RESOLUTION, Number.class);
+
+      if (resolution != null && builtResolution != null
+          && resolution == builtResolution.floatValue()) {
+        campaignIds.remove(build.getString("_id"));
+      }
+    }
+
+    campaignIds.addAll(markedCampaignIds);
+
+    return campaignIds;
+  }
+
+  /**
+   * <p>
+   * Replaces the tiles of the campaign with tiles of all its stored measurements, see the class
+   * description. A rebuild needs two calls: the first claims it, the first call after the grace
+   * period builds the tiles. Without grace period, both happen within one call.
+   * </p>
+   *
+   * @param campaignId Campaign to rebuild the tiles of
+   * @param grace Maximum time between creating and storing a measurement, including differences of
+   *        the clocks of the instances
+   * @return {@code true} if the tiles were rebuilt, {@code false} if the rebuild was claimed only,
+   *         is claimed by another instance or was aborted.
+   */
+  public boolean rebuild(String campaignId, Duration grace) {
+    Document build = getBuilds().find(Filters.eq("_id", campaignId)).first();
+
+    boolean claimed = build != null && REBUILDING.equals(build.getString(STATE))
+        && build.getDate(LEASE_UNTIL).after(new Date());
+
+    if (claimed && !nodeId.equals(build.getString(OWNER))) {
+      log.debug("Measurement tiles of campaign {} are rebuilt by another instance.", campaignId);
+      return false;
+    }
+
+    if (!claimed) {
+      build = claim(campaignId);
+
+      if (build == null) {
+        return false;
+      }
+    }
+
+    // Raw dates, as the measurements are stored with the time zone of the instance.
+    Date claimMoment = build.getDate(CLAIM_MOMENT);
+
+    if (claimMoment.getTime() + grace.toMillis() > System.currentTimeMillis()) {
+      return false;
+    }
+
+    float resolution = getResolution(getSiteId(campaignId));
+
+    mongoTemplate.remove(
+        Query.query(Criteria.where(AGVMeasurementTiles.Fields.campaignId).is(campaignId)),
+        AGVMeasurementTiles.class);
+
+    Query query = Query.query(Criteria.where(CAMPAIGN_ID).is(campaignId)
+        .and(AGVMeasurements.Fields.createMoment).lt(claimMoment));
+
+    List<AGVMeasurements> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+    long count = 0;
+
+    try (Stream<AGVMeasurements> measurements =
+        mongoTemplate.stream(query, AGVMeasurements.class)) {
+      for (AGVMeasurements measurement : (Iterable<AGVMeasurements>) measurements::iterator) {
+        batch.add(measurement);
+
+        if (batch.size() == REBUILD_BATCH_SIZE) {
+          count += batch.size();
+          addToTiles(batch, resolution);
+          batch.clear();
+
+          if (!renewLease(campaignId)) {
+            log.info("Rebuilding measurement tiles of campaign {} aborted.", campaignId);
+            return false;
+          }
+        }
+      }
+    }
+
+    count += batch.size();
+    addToTiles(batch, resolution);
+
+    Document previous = getBuilds().findOneAndUpdate(
+        Filters.and(Filters.eq("_id", campaignId), Filters.eq(STATE, REBUILDING),
+            Filters.eq(OWNER, nodeId)),
+        Updates.combine(Updates.set(STATE, COMPLETE), Updates.set(RESOLUTION, resolution),
+            Updates.set("buildMoment", new Date()), Updates.unset(OWNER),
+            Updates.unset(LEASE_UNTIL), Updates.unset(DEFERRED)));
+
+    if (previous == null) {
+      log.info("Rebuilding measurement tiles of campaign {} aborted.", campaignId);
+      return false;
+    }
+
+    List<String> deferredIds = previous.getList(DEFERRED, String.class, List.of());
+
+    // Measurements created before the claim are read from the DB already.
+    if (!deferredIds.isEmpty()) {
+      addToTiles(mongoTemplate.find(Query.query(Criteria.where("_id").in(deferredIds)
+          .and(AGVMeasurements.Fields.createMoment).gte(claimMoment)), AGVMeasurements.class));
+    }
+
+    log.info("Rebuilt measurement tiles of campaign {} from {} measurements.", campaignId, count);
+
+    return true;
+  }
+
+  /**
+   * Claims the rebuild of the tiles of the campaign for this instance.
+   *
+   * @return Claimed build or {@code null} if another instance claimed it.
+   */
+  private Document claim(String campaignId) {
+    markedCampaignIds.remove(campaignId);
+
+    Date now = new Date();
+
+    try {
+      Document build = getBuilds().findOneAndUpdate(
+          Filters.and(Filters.eq("_id", campaignId),
+              Filters.or(Filters.ne(STATE, REBUILDING), Filters.lte(LEASE_UNTIL, now))),
+          Updates.combine(Updates.set(STATE, REBUILDING), Updates.set(OWNER, nodeId),
+              Updates.set(CLAIM_MOMENT, now),
+              Updates.set(LEASE_UNTIL, new Date(now.getTime() + lease)),
+              Updates.set(DEFERRED, List.of())),
+          new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+
+      log.info("Claimed rebuilding measurement tiles of campaign {}.", campaignId);
+
+      return build;
+    } catch (MongoException e) {
+      // The upsert fails on the existing build claimed by another instance in the meantime.
+      log.debug("Claiming measurement tiles of campaign {} failed with '{}'.", campaignId,
+          e.getMessage());
+
+      return null;
+    }
+  }
+
+  /**
+   * @return {@code false} if the rebuild is not claimed by this instance anymore.
+   */
+  private boolean renewLease(String campaignId) {
+    return getBuilds().updateOne(
+        Filters.and(Filters.eq("_id", campaignId), Filters.eq(STATE, REBUILDING),
+            Filters.eq(OWNER, nodeId)),
+        Updates.set(LEASE_UNTIL, new Date(System.currentTimeMillis() + lease)))
+        .getMatchedCount() > 0;
+  }
+
+  private Collection<AGVMeasurementTiles> addToTiles(Collection<AGVMeasurements> measurements) {
+    Map<String, Float> resolutions = new HashMap<>();
+
+    return addToTiles(measurements, campaign -> resolutions.computeIfAbsent(campaign.getId(),
+        campaignId -> getResolution(campaign)));
+  }
+
+  private Collection<AGVMeasurementTiles> addToTiles(Collection<AGVMeasurements> measurements,
+      float resolution) {
+    return addToTiles(measurements, campaign -> resolution);
+  }
+
+  private Collection<AGVMeasurementTiles> addToTiles(Collection<AGVMeasurements> measurements,
+      Function<Campaigns, Float> resolutions) {
+    Map<String, AGVMeasurementTiles> tiles = new LinkedHashMap<>();
+
+    for (AGVMeasurements measurement : measurements) {
+      Coordinates coordinates = measurement.getCoordinates();
+
+      if (coordinates == null || coordinates.getX() == null || coordinates.getY() == null
+          || coordinates.getZ() != null
+              && coordinates.getZ() <= AGVMeasurementService.INVALID_THRESHOLD) {
+        continue;
+      }
+
+      String campaignId = measurement.getCampaign().getId();
+      float resolution = resolutions.apply(measurement.getCampaign());
+      long tileX = (long) Math.floor(coordinates.getX() / resolution);
+      long tileY = (long) Math.floor(coordinates.getY() / resolution);
+
+      AGVMeasurementTiles tile =
+          tiles.computeIfAbsent(AGVMeasurementTiles.id(campaignId, resolution, tileX, tileY),
+              id -> new AGVMeasurementTiles(id, campaignId, resolution, tileX, tileY,
+                  new MeasurementStatistics(), new MeasurementStatistics(), null));
+
+      add(tile.getDataRate(), measurement.getDataRate());
+      add(tile.getLatency(), measurement.getLatency());
+    }
+
+    if (tiles.isEmpty()) {
+      return tiles.values();
+    }
+
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, AGVMeasurementTiles.class);
+    LocalDateTime now = LocalDateTime.now();
+
+    for (AGVMeasurementTiles tile : tiles.values()) {
+      Update update = new Update()
+          .setOnInsert(AGVMeasurementTiles.Fields.campaignId, tile.getCampaignId())
+          .setOnInsert(AGVMeasurementTiles.Fields.resolution, tile.getResolution())
+          .setOnInsert(AGVMeasurementTiles.Fields.tileX, tile.getTileX())
+          .setOnInsert(AGVMeasurementTiles.Fields.tileY, tile.getTileY())
+          .set(AGVMeasurementTiles.Fields.updateMoment, now);
+
+      increment(update, AGVMeasurementTiles.Fields.dataRate, tile.getDataRate());
+      increment(update, AGVMeasurementTiles.Fields.latency, tile.getLatency());
+
+      bulkOperations.upsert(Query.query(Criteria.where("_id").is(tile.getId())), update);
+    }
+
+    bulkOperations.execute();
+
+    return tiles.values();
+  }
+
+  /**
+   * @return Tiles of the campaign at the current map tile resolution of its site.
+   */
+  public GetMeasurementTileStatsResponse search(Campaigns campaign) {
+    GetMeasurementTileStatsResponse response = new GetMeasurementTileStatsResponse();
+
+    float resolution = getResolution(campaign);
+
+    response.setTileResolution(resolution);
+    response.setTiles(tileDao.findByCampaignIdAndResolution(campaign.getId(), resolution));
+
+    return response;
+  }
+
+  /**
+   * @return Current map tile resolution of the site of the campaign.
+   */
+  public float getResolution(Campaigns campaign) {
+    return getResolution(campaign.getSite() == null ? null : campaign.getSite().getId());
+  }
+
+  private float getResolution(String siteId) {
+    Float resolution = siteId == null ? null
+        : siteDao.findById(siteId).map(Sites::getMapTileResolution).orElse(null);
+
+    return getResolution(resolution);
+  }
+
+  private static float getResolution(Number resolution) {
+    if (resolution == null || resolution.floatValue() <= 0) {
+      return DEFAULT_RESOLUTION;
+    }
+
+    return resolution.floatValue();
+  }
+
+  private String getSiteId(String campaignId) {
+    Document campaign = mongoTemplate.getCollection(mongoTemplate.getCollectionName(
+        Campaigns.class)).find(Filters.eq("_id", campaignId))
+        .projection(Projections.include(Campaigns.Fields.site + "._id")).first();
+    Document site = campaign == null ? null : campaign.get(Campaigns.Fields.site, Document.class);
+
+    return site == null ? null : site.getString("_id");
+  }
+
+  private MongoCollection<Document> getBuilds() {
+    return mongoTemplate.getCollection(BUILDS_COLLECTION);
+  }
+
+  private static void add(MeasurementStatistics statistics, Float value) {
+    if (value != null && Float.isFinite(value)) {
+      statistics.add(value);
+    }
+  }
+
+  private static void increment(Update update, String field,
+      MeasurementStatistics statistics) {
+    String prefix = field + ".";
+
+    update.inc(prefix + MeasurementStatistics.Fields.count, statistics.getCount())
+        .inc(prefix + MeasurementStatistics.Fields.sum, statistics.getSum())
+        .inc(prefix + MeasurementStatistics.Fields.sumOfSquares, statistics.getSumOfSquares());
+
+    if (statistics.getCount() > 0) {
+      update.min(prefix + MeasurementStatistics.Fields.min, statistics.getMin())
+          .max(prefix + MeasurementStatistics.Fields.max, statistics.getMax());
+    }
+  }
+}
@@ -19,21 +19,14 @@ package com.desire.services;
 import com.desire.dtos.PostAGVMeasurementRequest;
 import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
 import com.desire.dtos.PostMobileMeasurementRequest;
-import com.desire.model.entities.AGVMeasurements;
 import com.desire.model.entities.Campaigns;
-import com.desire.model.entities.Campaigns.Configuration;
-import com.desire.model.repositories.AGVMeasurementRepository;
 import com.desire.model.repositories.CampaignRepository;
-import com.desire.utils.UserSession;
 import com.desire.validations.Validation;
 import com.desire.validations.codes.SystemErrorCodes;
 import com.desire.validations.exceptions.ValidationException;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,10 +34,19 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class AGVMeasurementValidationService {
 
-  private final @NonNull AGVMeasurementRepository measurementDao;
+  private final @NonNull CampaignConfigurationIndexService configurationIndexService;
   private final @NonNull CampaignRepository campaignDao;
 
-  public void validatePost(PostAGVMeasurementRequest request) throws ValidationException {
+  /**
+   * Validates posted measurements against the configuration of their campaign. Measurement IDs are
+   * not checked for duplicates, already stored measurements are skipped when writing.
+   *
+   * @param request Posted measurements
+   * @return Campaign to write the measurements for.
+   * @throws ValidationException Thrown if the campaign does not exist or the measurements do not
+   *         match its configuration.
+   */
+  public Campaigns validatePost(PostAGVMeasurementRequest request) throws ValidationException {
     Validation validations = new Validation();
 
     Optional<Campaigns> campaignOptional = campaignDao.findById(request.getCampaignId());
@@ -62,39 +64,86 @@ public class AGVMeasurementValidationService {
       validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Campaign ID mismatch");
     }
 
-    Set<String> agvIds = campaign.getConfigurations().stream().map(Configuration::getAgvId)
-        .collect(Collectors.toSet());
-    Set<String> clientIds = campaign.getConfigurations().stream().map(Configuration::getClientId)
-        .collect(Collectors.toSet());
-    Set<String> endpointIds = campaign.getConfigurations().stream()
-        .map(Configuration::getEndpointId).collect(Collectors.toSet());
+    CampaignConfigurationIndex index = configurationIndexService.get(campaign);
 
     for (PostAGVMeasurementValueRequest value : request.getValues()) {
-      if (!agvIds.contains(value.getAgvId())) {
+      if (!index.containsAgvId(value.getAgvId())) {
         validations.addError(SystemErrorCodes.VALIDATION_ERROR, "AGV ID mismatch");
       }
 
-      if (!clientIds.contains(value.getClientId())) {
+      if (!index.containsClientId(value.getClientId())) {
         validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Client ID mismatch");
       }
 
-      if (!endpointIds.contains(value.getEndpointId())) {
+      if (!index.containsEndpointId(value.getEndpointId())) {
         validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Endpoint ID mismatch");
       }
     }
 
-    Optional<Long> maxMeasurementId = request.getValues().stream()
-        .map(PostAGVMeasurementValueRequest::getMeasurementId).max(Long::compareTo);
-    Optional<AGVMeasurements> latestMeasurmentOptional = measurementDao.findFirstByCampaignIdOrderByMeasurementIdDesc(
-        campaign.getId());
-
-    if (maxMeasurementId.isPresent() && latestMeasurmentOptional.isPresent()
-        && latestMeasurmentOptional.get().getMeasurementId() >= maxMeasurementId.get()) {
-      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Duplicate measurements");
+    if (validations.hasErrors()) {
+      throw new ValidationException(validations);
     }
 
-    if (validations.hasErrors()) {
+    return campaign;
+  }
+
+  /**
+   * Validates that measurements can be ingested for the given campaign. Like for posted
+   * measurements, the campaign must exist only, in any state, as backlogs of the TUI are ingested
+   * after campaigns completed. The values are validated row by row, see {@link #validateValue}.
+   *
+   * @param campaignId Campaign ID
+   * @return Campaign to ingest measurements for.
+   * @throws ValidationException Thrown if the campaign does not exist.
+   */
+  public Campaigns validateIngest(String campaignId) throws ValidationException {
+    Validation validations = new Validation();
+
+    Optional<Campaigns> campaignOptional = campaignDao.findById(campaignId);
+
+    if (campaignOptional.isEmpty()) {
+      validations.addError(SystemErrorCodes.RESOURCE_NOT_FOUND, "Campaign not found");
+
       throw new ValidationException(validations);
     }
+
+    return campaignOptional.get();
+  }
+
+  /**
+   * Validates a single measurement value against the configuration of the given campaign. Used by
+   * the streaming ingestion where invalid rows are rejected one by one instead of failing the whole
+   * upload.
+   *
+   * @param campaign Campaign the value is ingested for
+   * @param value Measurement value
+   * @return Validation result, possibly without errors.
+   */
+  public Validation validateValue(Campaigns campaign, PostAGVMeasurementValueRequest value) {
+    Validation validations = new Validation();
+
+    if (value.getMeasurementId() == null || value.getMeasureMoment() == null) {
+      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Missing measurement ID or time");
+    }
+
+    if (!campaign.getId().equals(value.getCampaignId())) {
+      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Campaign ID mismatch");
+    }
+
+    CampaignConfigurationIndex index = configurationIndexService.get(campaign);
+
+    if (!index.containsAgvId(value.getAgvId())) {
+      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "AGV ID mismatch");
+    }
+
+    if (!index.containsClientId(value.getClientId())) {
+      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Client ID mismatch");
+    }
+
+    if (!index.containsEndpointId(value.getEndpointId())) {
+      validations.addError(SystemErrorCodes.VALIDATION_ERROR, "Endpoint ID mismatch");
+    }
+
+    return validations;
   }
 }
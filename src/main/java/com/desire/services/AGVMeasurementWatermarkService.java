@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.repositories.AGVMeasurementRepository;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Caches the highest stored measurement ID per campaign.
+ * </p>
+ *
+ * <p>
+ * Watermarks are seeded from the DB on first access and advanced after each successful insert.
+ * Measurements inserted by other backend instances are not seen, so a watermark may be lower than
+ * the stored maximum, but never higher. Pulling from a lower watermark is safe because stored
+ * measurements are skipped when writing.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AGVMeasurementWatermarkService {
+
+  /**
+   * Watermark of campaigns without measurements.
+   */
+  private static final long NONE = Long.MIN_VALUE;
+
+  private final @NonNull AGVMeasurementRepository measurementDao;
+
+  private final Map<String, AtomicLong> watermarks = new ConcurrentHashMap<>();
+
+  /**
+   * @param campaignId Campaign ID
+   * @return Highest stored measurement ID of the campaign or empty if it has no measurements.
+   */
+  public OptionalLong get(String campaignId) {
+    long watermark = watermarks.computeIfAbsent(campaignId, this::load).get();
+
+    return watermark == NONE ? OptionalLong.empty() : OptionalLong.of(watermark);
+  }
+
+  /**
+   * Advances the watermark of the campaign after measurements have been inserted. Watermarks not
+   * loaded yet are left alone, they include the inserted measurements when loaded.
+   *
+   * @param campaignId Campaign ID
+   * @param measurementId Highest inserted measurement ID
+   */
+  public void advance(String campaignId, long measurementId) {
+    AtomicLong watermark = watermarks.get(campaignId);
+
+    if (watermark != null) {
+      watermark.accumulateAndGet(measurementId, Math::max);
+    }
+  }
+
+  private AtomicLong load(String campaignId) {
+    return new AtomicLong(measurementDao.findFirstByCampaignIdOrderByMeasurementIdDesc(campaignId)
+        .map(AGVMeasurements::getMeasurementId).orElse(NONE));
+  }
+}
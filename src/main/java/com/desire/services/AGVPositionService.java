@@ -44,6 +44,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class AGVPositionService {
 
   private final @NonNull AGVPositionRepository positionDao;
+  private final @NonNull AGVPositionWriteBehindService writeBehindService;
   private final @NonNull AGVStreamService agvStreamService;
   private final @NonNull CampaignRepository campaignDao;
   private final @NonNull TuiAGVPositionMessageRepository tuiAgvPositionDao;
@@ -98,14 +99,16 @@ public class AGVPositionService {
       agvPosition.setCampaign(campaign.get());
       agvPosition.getCoordinates().addAll(request.getCoordinates());
 
-      // Save the position in DB.
-      agvPosition = positionDao.save(agvPosition);
+      if (!writeBehindService.isEnabled() || !writeBehindService.offer(agvPosition)) {
+        // Save the position in DB.
+        agvPosition = positionDao.save(agvPosition);
 
-      // Save the position message in queue for TUI backend.
-      tuiAgvPositionDao.save(new TuiAGVPositionMessages(agvPosition));
+        // Save the position message in queue for TUI backend.
+        tuiAgvPositionDao.save(new TuiAGVPositionMessages(agvPosition));
 
-      // Execute the synchronization task
-      tuiSyncTask.executeAsync();
+        // Execute the synchronization task
+        tuiSyncTask.executeAsync();
+      }
 
       // Publish on AGV update stream.
       agvStreamService.publish(userId, new AGVUpdateDto(agvPosition));
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.desire.model.entities.AGVPositions;
+import com.desire.model.entities.TuiAGVPositionMessages;
+import com.desire.model.repositories.AGVPositionRepository;
+import com.desire.model.repositories.TuiAGVPositionMessageRepository;
+import com.desire.tasks.TuiDataPushTask;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Write-behind buffer for AGV positions.
+ * </p>
+ *
+ * <p>
+ * If enabled, posted positions are acknowledged once they are buffered and written to the DB
+ * together with their TUI queue messages in batches. A batch is written after the configured
+ * maximum delay or, by a background flusher, as soon as the buffer holds a full batch. The buffer
+ * is flushed on shutdown.
+ * </p>
+ *
+ * <p>
+ * Positions are acknowledged before they are written, so batches failing to be written are retried
+ * with the next flushes up to the configured number of retries.
+ * </p>
+ *
+ * <p>
+ * The buffer is kept in memory only, positions buffered at the time of a crash are lost.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AGVPositionWriteBehindService {
+
+  private final @NonNull AGVPositionRepository positionDao;
+  private final @NonNull TuiAGVPositionMessageRepository tuiAgvPositionDao;
+  private final @NonNull TuiDataPushTask tuiSyncTask;
+
+  private final Lock flushLock = new ReentrantLock();
+
+  private BlockingQueue<AGVPositions> buffer;
+
+  /**
+   * Batches to retry, written before newly buffered positions.
+   */
+  private final Queue<Batch> failedBatches = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Writes full batches off the request threads. A single pending flush covers all full batches,
+   * further signals are discarded.
+   */
+  private ThreadPoolExecutor flusher;
+
+  @Getter
+  @Value("${app.agv-positions.write-behind.enabled:false}")
+  private boolean enabled;
+
+  /**
+   * Maximum number of positions written in a single batch.
+   */
+  @Value("${app.agv-positions.write-behind.batch-size:500}")
+  private int batchSize;
+
+  /**
+   * Maximum number of buffered positions, positions are written synchronously if the buffer is
+   * full.
+   */
+  @Value("${app.agv-positions.write-behind.capacity:10000}")
+  private int capacity;
+
+  /**
+   * Number of times a failed batch is retried before its positions are dropped.
+   */
+  @Value("${app.agv-positions.write-behind.max-retries:5}")
+  private int maxRetries;
+
+  @PostConstruct
+  public void init() {
+    buffer = new LinkedBlockingQueue<>(capacity);
+    flusher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+        runnable -> {
+          Thread thread = new Thread(runnable, "agv-position-flusher");
+          thread.setDaemon(true);
+
+          return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  /**
+   * Buffers the position for writing.
+   *
+   * @param position Position to write
+   * @return {@code false} if the buffer is full and the position must be written by the caller.
+   */
+  public boolean offer(AGVPositions position) {
+    if (!buffer.offer(position)) {
+      log.warn("AGV position write-behind buffer is full.");
+
+      return false;
+    }
+
+    // Write full batches right away instead of waiting for the maximum delay.
+    if (buffer.size() >= batchSize) {
+      flusher.execute(() -> flush(false));
+    }
+
+    return true;
+  }
+
+  @Scheduled(fixedDelayString = "${app.agv-positions.write-behind.max-delay-ms:500}")
+  public void flushScheduled() {
+    if (enabled) {
+      flush(false);
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() throws InterruptedException {
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+
+    if (!buffer.isEmpty() || !failedBatches.isEmpty()) {
+      log.info("Flushing {} buffered AGV positions and {} failed batches on shutdown.",
+          buffer.size(), failedBatches.size());
+
+      flush(true);
+    }
+  }
+
+  /**
+   * Writes all buffered positions in batches.
+   *
+   * @param wait If {@code true}, waits for a running flush to finish instead of skipping.
+   */
+  private void flush(boolean wait) {
+    if (wait) {
+      flushLock.lock();
+    } else if (!flushLock.tryLock()) {
+      return;
+    }
+
+    try {
+      for (int i = failedBatches.size(); i > 0; i--) {
+        Batch batch = failedBatches.poll();
+
+        if (batch != null) {
+          write(batch);
+        }
+      }
+
+      List<AGVPositions> positions = new ArrayList<>(batchSize);
+
+      while (buffer.drainTo(positions, batchSize) > 0) {
+        write(new Batch(List.copyOf(positions),
+            positions.stream().map(TuiAGVPositionMessages::new).toList(), 0));
+
+        positions.clear();
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void write(Batch batch) {
+    try {
+      if (batch.attempts() == 0) {
+        positionDao.insert(batch.positions());
+
+        // Save the position messages in queue for TUI backend.
+        tuiAgvPositionDao.insert(batch.messages());
+      } else {
+        // A failed insert may have written a part of the batch already.
+        positionDao.saveAll(batch.positions());
+        tuiAgvPositionDao.saveAll(batch.messages());
+      }
+    } catch (Exception e) {
+      if (batch.attempts() < maxRetries) {
+        log.warn("Failed to write {} buffered AGV positions, retrying with the next flush.",
+            batch.positions().size(), e);
+
+        failedBatches.add(new Batch(batch.positions(), batch.messages(), batch.attempts() + 1));
+      } else {
+        log.error("Failed to write {} buffered AGV positions after {} retries, dropping them.",
+            batch.positions().size(), maxRetries, e);
+      }
+
+      return;
+    }
+
+    log.debug("Wrote {} buffered AGV positions.", batch.positions().size());
+
+    // Execute the synchronization task
+    tuiSyncTask.executeAsync();
+  }
+
+  /**
+   * Positions written together with their TUI queue messages, which keep their IDs across retries.
+   *
+   * @param positions Positions to write
+   * @param messages TUI queue messages of the positions
+   * @param attempts Number of failed attempts to write the batch
+   */
+  private record Batch(List<AGVPositions> positions, List<TuiAGVPositionMessages> messages,
+      int attempts) {
+
+  }
+}
@@ -82,6 +82,13 @@ public class AGVService {
     return new PageImpl<>(agvDtos, request.getPage(AGVDto.Fields.id), totalSize);
   }
 
+  /**
+   * @return IDs of the AGVs matching the request, without loading their state.
+   */
+  public List<String> searchIds(SearchAGVRequest request) {
+    return getFilteredKeycloakUsers(request).stream().map(UserRepresentation::getId).toList();
+  }
+
   private AGVDto buildDto(UserRepresentation keycloakUser) {
     AGVDto agvDto = new AGVDto();
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Campaigns.Configuration;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Immutable lookup tables compiled from the configurations of a campaign.
+ * </p>
+ *
+ * <p>
+ * An index belongs to a single version of the campaign identified by its update moment, see
+ * {@link CampaignConfigurationIndexService}.
+ * </p>
+ */
+public final class CampaignConfigurationIndex {
+
+  @Getter
+  private final String campaignId;
+
+  @Getter
+  private final LocalDateTime updateMoment;
+
+  private final Set<String> agvIds;
+
+  private final Set<String> clientIds;
+
+  private final Set<String> endpointIds;
+
+  /**
+   * IDs of all AGVs configured in the campaign, measurements of the campaign are routed to their
+   * streams.
+   */
+  @Getter
+  private final List<String> routedAgvIds;
+
+  private CampaignConfigurationIndex(Campaigns campaign) {
+    List<Configuration> configurations =
+        campaign.getConfigurations() != null ? campaign.getConfigurations() : List.of();
+
+    this.campaignId = campaign.getId();
+    this.updateMoment = campaign.getUpdateMoment();
+    this.agvIds = collect(configurations, Configuration::getAgvId);
+    this.clientIds = collect(configurations, Configuration::getClientId);
+    this.endpointIds = collect(configurations, Configuration::getEndpointId);
+    this.routedAgvIds = configurations.stream().map(Configuration::getAgvId)
+        .filter(Objects::nonNull).distinct().toList();
+  }
+
+  public static CampaignConfigurationIndex of(Campaigns campaign) {
+    return new CampaignConfigurationIndex(campaign);
+  }
+
+  /**
+   * @return {@code true} if the index was compiled from the current version of the campaign.
+   */
+  public boolean isCurrent(Campaigns campaign) {
+    return campaignId.equals(campaign.getId())
+        && Objects.equals(updateMoment, campaign.getUpdateMoment());
+  }
+
+  public boolean containsAgvId(String agvId) {
+    return agvId != null && agvIds.contains(agvId);
+  }
+
+  public boolean containsClientId(String clientId) {
+    return clientId != null && clientIds.contains(clientId);
+  }
+
+  public boolean containsEndpointId(String endpointId) {
+    return endpointId != null && endpointIds.contains(endpointId);
+  }
+
+  private static Set<String> collect(List<Configuration> configurations,
+      Function<Configuration, String> mapper) {
+    return Set.copyOf(configurations.stream().map(mapper).filter(Objects::nonNull).toList());
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Service;
+import com.desire.model.entities.Campaigns;
+
+/**
+ * Caches the compiled {@link CampaignConfigurationIndex} per campaign. Indexes are recompiled if
+ * the update moment of the given campaign differs from the cached one and are evicted when the
+ * configurations of a campaign change.
+ */
+@Service
+public class CampaignConfigurationIndexService {
+
+  private final Map<String, CampaignConfigurationIndex> indexes = new ConcurrentHashMap<>();
+
+  public CampaignConfigurationIndex get(Campaigns campaign) {
+    CampaignConfigurationIndex index = indexes.get(campaign.getId());
+
+    if (index == null || !index.isCurrent(campaign)) {
+      index = CampaignConfigurationIndex.of(campaign);
+
+      indexes.put(campaign.getId(), index);
+    }
+
+    return index;
+  }
+
+  public void evict(String campaignId) {
+    indexes.remove(campaignId);
+  }
+}
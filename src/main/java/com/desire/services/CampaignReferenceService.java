@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.repositories.CampaignRepository;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Cached lookup of campaigns by ID.
+ * </p>
+ *
+ * <p>
+ * If slim campaign references are enabled, measurements, positions, commands and TUI messages only
+ * store the campaign, site and organization IDs of their campaign. The full campaign is resolved
+ * through this service when these documents are read.
+ * </p>
+ *
+ * <p>
+ * Cached instances are shared between all documents referencing the same campaign, so they must
+ * only be modified through {@link CampaignService}, which updates the cache when saving.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CampaignReferenceService {
+
+  /**
+   * Maximum age of cached campaigns, limits staleness if campaigns are updated by another backend
+   * instance.
+   */
+  private static final Duration CACHE_TIMEOUT = Duration.ofMinutes(1);
+
+  private final @NonNull CampaignRepository campaignDao;
+
+  private final Map<String, CachedCampaign> campaigns = new ConcurrentHashMap<>();
+
+  /**
+   * If {@code true}, documents referencing campaigns only store the campaign, site and organization
+   * IDs instead of the full campaign.
+   */
+  @Getter
+  @Value("${app.storage.slim-campaign-references:false}")
+  private boolean slimReferencesEnabled;
+
+  public Optional<Campaigns> findById(String campaignId) {
+    if (campaignId == null) {
+      return Optional.empty();
+    }
+
+    CachedCampaign cachedCampaign = campaigns.get(campaignId);
+
+    if (cachedCampaign != null
+        && cachedCampaign.loadMoment().plus(CACHE_TIMEOUT).isAfter(LocalDateTime.now())) {
+      return Optional.of(cachedCampaign.campaign());
+    }
+
+    Optional<Campaigns> campaignOptional = campaignDao.findById(campaignId);
+
+    campaignOptional.ifPresentOrElse(this::put, () -> campaigns.remove(campaignId));
+
+    return campaignOptional;
+  }
+
+  /**
+   * Resolves the full campaign for the given, possibly slim, campaign reference.
+   *
+   * @param campaign Campaign as read from a referencing document, nullable
+   * @return Full campaign or the given reference if the campaign does not exist anymore.
+   */
+  public Campaigns resolve(Campaigns campaign) {
+    // Full embedded campaigns always have a name.
+    if (campaign == null || campaign.getName() != null) {
+      return campaign;
+    }
+
+    return findById(campaign.getId()).orElse(campaign);
+  }
+
+  public void put(Campaigns campaign) {
+    campaigns.put(campaign.getId(), new CachedCampaign(campaign, LocalDateTime.now()));
+  }
+
+  public void evict(String campaignId) {
+    campaigns.remove(campaignId);
+  }
+
+  private record CachedCampaign(Campaigns campaign, LocalDateTime loadMoment) {
+
+  }
+}
@@ -53,6 +53,8 @@ public class CampaignService {
 
   private final @NonNull AGVCommandService agvCommandService;
   private final @NonNull FakePositionService fakePositionService;
+  private final @NonNull CampaignConfigurationIndexService configurationIndexService;
+  private final @NonNull CampaignReferenceService campaignReferenceService;
   private final @NonNull CampaignRepository campaignDao;
   private final @NonNull SiteRepository siteDao;
   private final @NonNull TuiCampaignService tuiCampaignService;
@@ -137,6 +139,8 @@ public class CampaignService {
 
     if (request.getConfigurations() != null) {
       campaign.setConfigurations(request.getConfigurations());
+
+      configurationIndexService.evict(campaign.getId());
     }
 
     if (request.getState() != null) {
@@ -197,6 +201,9 @@ public class CampaignService {
 
     campaign = campaignDao.save(campaign);
 
+    // Update the cached campaign for slim campaign references.
+    campaignReferenceService.put(campaign);
+
     // Save the campaign message in queue for TUI backend.
     tuiCampaignDao.save(new TuiCampaignMessages(campaign, sendMethod));
 
@@ -19,17 +19,14 @@ package com.desire.services;
 import com.desire.dtos.PostAGVMeasurementRequest;
 import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
 import com.desire.dtos.PostAGVPositionRequest;
-import com.desire.model.entities.AGVMeasurements;
 import com.desire.model.entities.Campaigns;
 import com.desire.model.entities.Campaigns.Configuration;
 import com.desire.model.entities.Coordinates;
-import com.desire.model.repositories.AGVMeasurementRepository;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import lombok.Data;
@@ -46,8 +43,8 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class FakePositionService {
 
-  private final @NonNull AGVMeasurementRepository agvMeasurementDao;
   private final @NonNull AGVMeasurementService agvMeasurementService;
+  private final @NonNull AGVMeasurementWatermarkService watermarkService;
   private final @NonNull AGVPositionService agvPositionService;
 
   private final Map<Campaigns, FakeState> campaigns = new HashMap<>();
@@ -79,11 +76,8 @@ public class FakePositionService {
       boolean generateFakeMeasurements) {
     campaigns.put(campaign, new FakeState(generateFakePositions, generateFakeMeasurements));
 
-    Optional<AGVMeasurements> measurementOptional = agvMeasurementDao.findFirstByCampaignIdOrderByMeasurementIdDesc(
-        campaign.getId());
-
-    measurementOptional.ifPresent(agvMeasurements -> campaigns.get(campaign).getMeasurementId()
-        .set(agvMeasurements.getMeasurementId()));
+    watermarkService.get(campaign.getId())
+        .ifPresent(measurementId -> campaigns.get(campaign).getMeasurementId().set(measurementId));
   }
 
   public void stop(Campaigns campaign) {
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.services;
+
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.model.entities.AGVMeasurementTiles;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Coordinates;
+import com.desire.model.entities.MeasurementStatistics;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * Serves heatmap tiles of a fixed number of cells in an XYZ pyramid: zoom level 0 is the coarsest,
+ * the finest level has cells of the site map tile resolution. Each coarser level doubles the cell
+ * size.
+ * </p>
+ *
+ * <p>
+ * Cells hold the mean of the measurements within them, computed from the measurement tile rollups.
+ * Coarser cells merge the sums and counts of the finest cells they cover, so they are the average
+ * of the finer levels weighted by the number of measurements. Tiles are cached and evicted only
+ * where new measurements are stored.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class HeatmapTileService {
+
+  private final @NonNull AGVMeasurementTileService measurementTileService;
+  private final @NonNull MongoTemplate mongoTemplate;
+
+  /**
+   * Number of zoom levels.
+   */
+  @Getter
+  @Value("${app.heatmap.levels:6}")
+  private int levels;
+
+  /**
+   * Number of cells along each axis of a tile.
+   */
+  @Value("${app.heatmap.tile-size:64}")
+  private int tileSize;
+
+  /**
+   * Maximum number of cached tiles, least recently used tiles are evicted first.
+   */
+  @Value("${app.heatmap.cache-size:1024}")
+  private int cacheSize;
+
+  /**
+   * Number of evictions, tiles generated while tiles were evicted may be outdated.
+   */
+  private long evictions;
+
+  private final Map<Key, GetInterpolatedMeasurementResponse> tiles =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<Key, GetInterpolatedMeasurementResponse> eldest) {
+          return size() > cacheSize;
+        }
+      };
+
+  /**
+   * @param zoom Zoom level between 0 and the number of levels - 1
+   * @return Tile as grid of the cell centres, values are NaN for cells without measurements.
+   */
+  public GetInterpolatedMeasurementResponse get(Campaigns campaign, int zoom, long tileX,
+      long tileY) {
+    Key key = new Key(campaign.getId(), measurementTileService.getResolution(campaign), zoom,
+        tileX, tileY);
+
+    long generation;
+
+    synchronized (tiles) {
+      GetInterpolatedMeasurementResponse tile = tiles.get(key);
+
+      if (tile != null) {
+        return tile;
+      }
+
+      generation = evictions;
+    }
+
+    // Concurrent requests of the same tile may both generate it, which is harmless.
+    GetInterpolatedMeasurementResponse tile = generate(key);
+
+    synchronized (tiles) {
+      if (generation == evictions) {
+        tiles.put(key, tile);
+      }
+    }
+
+    return tile;
+  }
+
+  /**
+   * Evicts the tiles of all zoom levels covering the given measurement tiles.
+   */
+  public void evict(Collection<AGVMeasurementTiles> measurementTiles) {
+    if (measurementTiles.isEmpty()) {
+      return;
+    }
+
+    synchronized (tiles) {
+      evictions++;
+
+      for (AGVMeasurementTiles measurementTile : measurementTiles) {
+        for (int zoom = 0; zoom < levels; zoom++) {
+          long cells = (long) tileSize << (levels - 1 - zoom);
+
+          tiles.remove(new Key(measurementTile.getCampaignId(), measurementTile.getResolution(),
+              zoom, Math.floorDiv(measurementTile.getTileX(), cells),
+              Math.floorDiv(measurementTile.getTileY(), cells)));
+        }
+      }
+    }
+  }
+
+  /**
+   * Evicts all tiles of the campaign.
+   */
+  public void evict(String campaignId) {
+    synchronized (tiles) {
+      evictions++;
+
+      tiles.keySet().removeIf(key -> key.campaignId().equals(campaignId));
+    }
+  }
+
+  private GetInterpolatedMeasurementResponse generate(Key key) {
+    long factor = 1L << (levels - 1 - key.zoom());
+    long minX = key.tileX() * tileSize * factor;
+    long minY = key.tileY() * tileSize * factor;
+
+    Query query = Query.query(Criteria.where(AGVMeasurementTiles.Fields.campaignId)
+        .is(key.campaignId()).and(AGVMeasurementTiles.Fields.resolution).is(key.resolution())
+        .and(AGVMeasurementTiles.Fields.tileX).gte(minX).lt(minX + tileSize * factor)
+        .and(AGVMeasurementTiles.Fields.tileY).gte(minY).lt(minY + tileSize * factor));
+
+    List<AGVMeasurementTiles> measurementTiles =
+        mongoTemplate.find(query, AGVMeasurementTiles.class);
+
+    int cells = tileSize * tileSize;
+    MeasurementStatistics[] dataRates = new MeasurementStatistics[cells];
+    MeasurementStatistics[] latencies = new MeasurementStatistics[cells];
+
+    for (AGVMeasurementTiles measurementTile : measurementTiles) {
+      int index = (int) ((measurementTile.getTileX() - minX) / factor) * tileSize
+          + (int) ((measurementTile.getTileY() - minY) / factor);
+
+      dataRates[index] = merge(dataRates[index], measurementTile.getDataRate());
+      latencies[index] = merge(latencies[index], measurementTile.getLatency());
+    }
+
+    float cellSize = key.resolution() * factor;
+    Coordinates minCoordinates =
+        new Coordinates((minX + 0.5f * factor) * key.resolution(),
+            (minY + 0.5f * factor) * key.resolution(), 0f);
+    Coordinates maxCoordinates =
+        new Coordinates(minCoordinates.getX() + (tileSize - 1) * cellSize,
+            minCoordinates.getY() + (tileSize - 1) * cellSize, 0f);
+
+    GetInterpolatedMeasurementResponse tile = new GetInterpolatedMeasurementResponse();
+    tile.initGrid(key.campaignId(), cellSize, minCoordinates, maxCoordinates, tileSize, tileSize);
+    tile.setDataReceived(!measurementTiles.isEmpty());
+
+    for (int i = 0; i < cells; i++) {
+      tile.getDataRates()[i] = mean(dataRates[i]);
+      tile.getLatencies()[i] = mean(latencies[i]);
+    }
+
+    return tile;
+  }
+
+  private static MeasurementStatistics merge(MeasurementStatistics merged,
+      MeasurementStatistics statistics) {
+    if (statistics == null || statistics.getCount() == 0) {
+      return merged;
+    }
+
+    if (merged == null) {
+      merged = new MeasurementStatistics();
+    }
+
+    merged.setCount(merged.getCount() + statistics.getCount());
+    merged.setSum(merged.getSum() + statistics.getSum());
+
+    return merged;
+  }
+
+  private static float mean(MeasurementStatistics statistics) {
+    return statistics == null ? Float.NaN : statistics.getMean().floatValue();
+  }
+
+  private record Key(String campaignId, float resolution, int zoom, long tileX, long tileY) {
+
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.services;
+
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.model.entities.Coordinates;
+import com.desire.types.InterpolationEngine;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * Least recently used cache of interpolated measurement grids.
+ * </p>
+ *
+ * <p>
+ * Grids are keyed by their request and the highest stored measurement ID of the campaign, so a grid
+ * computed before new measurements arrived is never returned afterwards. Entries of a campaign are
+ * evicted when measurements are stored, and least recently used entries are evicted once the
+ * estimated size of all grids exceeds the configured maximum.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class InterpolatedMeasurementsCacheService {
+
+  /**
+   * Heap size of the data rate and latency of a grid location in bytes.
+   */
+  private static final long VALUE_SIZE = 2L * Float.BYTES;
+
+  /**
+   * Estimated heap size of an entry without its values in bytes.
+   */
+  private static final long ENTRY_SIZE = 256;
+
+  private final @NonNull AGVMeasurementWatermarkService watermarkService;
+
+  private final Map<Key, GetInterpolatedMeasurementResponse> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  @Value("${app.interpolation.cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${app.interpolation.cache.max-size-mb:64}")
+  private long maxSizeMb;
+
+  /**
+   * @return Key of the grid at the current measurement version of the campaign.
+   */
+  public Key key(String campaignId, Coordinates minCoordinates, Coordinates maxCoordinates,
+      float resolution, InterpolationEngine engine) {
+    return new Key(campaignId, minCoordinates.getX(), minCoordinates.getY(),
+        maxCoordinates.getX(), maxCoordinates.getY(), resolution, engine,
+        watermarkService.get(campaignId).orElse(Long.MIN_VALUE));
+  }
+
+  public synchronized Optional<GetInterpolatedMeasurementResponse> get(Key key) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    GetInterpolatedMeasurementResponse response = entries.get(key);
+
+    if (response == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+
+    return Optional.ofNullable(response);
+  }
+
+  public synchronized void put(Key key, GetInterpolatedMeasurementResponse response) {
+    long maxSize = maxSizeMb * 1024 * 1024;
+    long entrySize = sizeOf(response);
+
+    if (!enabled || entrySize > maxSize) {
+      return;
+    }
+
+    GetInterpolatedMeasurementResponse previous = entries.put(key, response);
+
+    if (previous != null) {
+      size -= sizeOf(previous);
+    }
+
+    size += entrySize;
+
+    Iterator<GetInterpolatedMeasurementResponse> iterator = entries.values().iterator();
+
+    while (size > maxSize && iterator.hasNext()) {
+      size -= sizeOf(iterator.next());
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * Evicts all grids of the campaign, called when measurements of the campaign are stored.
+   */
+  public synchronized void evict(String campaignId) {
+    Iterator<Map.Entry<Key, GetInterpolatedMeasurementResponse>> iterator =
+        entries.entrySet().iterator();
+
+    while (iterator.hasNext()) {
+      Map.Entry<Key, GetInterpolatedMeasurementResponse> entry = iterator.next();
+
+      if (entry.getKey().campaignId().equals(campaignId)) {
+        size -= sizeOf(entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized Statistics getStatistics() {
+    return new Statistics(enabled, entries.size(), size, maxSizeMb * 1024 * 1024, hits, misses,
+        evictions);
+  }
+
+  private static long sizeOf(GetInterpolatedMeasurementResponse response) {
+    return ENTRY_SIZE + response.getSize() * VALUE_SIZE;
+  }
+
+  /**
+   * @param version Highest stored measurement ID of the campaign when the grid was requested
+   */
+  public record Key(String campaignId, float minX, float minY, float maxX, float maxY,
+      float resolution, InterpolationEngine engine, long version) {
+
+  }
+
+  /**
+   * @param evictions Number of entries evicted to stay within the maximum size
+   */
+  public record Statistics(boolean enabled, int entries, long sizeBytes, long maxSizeBytes,
+      long hits, long misses, long evictions) {
+
+  }
+}
@@ -18,37 +18,51 @@ package com.desire.services;
 
 import com.desire.constants.Endpoints.TUI;
 import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.dtos.GetInterpolatedMeasurementShardResponse;
 import com.desire.dtos.GetInterpolatedMeasurementsRequest;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest.GetInterpolatedMeasurementsGridRequest;
 import com.desire.dtos.GetInterpolatedMeasurementsRequest.GetInterpolatedMeasurementsLocationRequest;
-import com.desire.dtos.GetInterpolatedMeasurementValueResponse;
 import com.desire.dtos.SearchCampaignRequest;
 import com.desire.dtos.SearchInterpolatedMeasurementsRequest;
 import com.desire.model.entities.Campaigns;
 import com.desire.model.entities.Coordinates;
 import com.desire.model.entities.Sites;
+import com.desire.types.InterpolationEngine;
 import com.desire.utils.TuiTimestampDeserializer;
 import com.desire.validations.exceptions.ValidationException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -56,23 +70,62 @@ import org.springframework.web.client.RestTemplate;
 @Service
 public class InterpolatedMeasurementsService {
 
+  private final @NonNull InterpolatedMeasurementsCacheService cacheService;
   private final @NonNull CampaignService campaignService;
   private final @NonNull InterpolatedMeasurementsValidationService validationService;
+  private final @NonNull LocalInterpolationService localInterpolationService;
   private final @NonNull RestTemplate restTemplateShortTimeout;
 
   private final ObjectMapper tuiObjectMapper;
-  private final CollectionType tuiResponseListType;
 
   @Value("${TUI_BACKEND_URL}" + TUI.INTERPOLATED_MEASUREMENTS_BULK)
   private String tuiBackendUrl;
 
+  /**
+   * Engine used for sites without an engine.
+   */
+  @Value("${app.interpolation.default-engine:TUI}")
+  private InterpolationEngine defaultEngine;
+
+  /**
+   * Whether to retry with the other engine if the selected one returns no data.
+   */
+  @Value("${app.interpolation.fallback:true}")
+  private boolean fallbackEnabled;
+
+  /**
+   * Maximum number of grid locations requested from TUI at once.
+   */
+  @Value("${app.interpolation.tui.shard-size:10000}")
+  private int tuiShardSize;
+
+  /**
+   * Maximum number of concurrent requests to TUI.
+   */
+  @Value("${app.interpolation.tui.parallelism:4}")
+  private int tuiParallelism;
+
+  /**
+   * Whether to describe the grid to TUI by origin, step and size instead of listing each location.
+   */
+  @Value("${app.interpolation.tui.grid-descriptor:false}")
+  private boolean tuiGridDescriptor;
+
+  private final Environment environment;
+
+  private Executor tuiExecutor;
 
   @Autowired
-  public InterpolatedMeasurementsService(@NonNull CampaignService campaignService,
+  public InterpolatedMeasurementsService(@NonNull InterpolatedMeasurementsCacheService cacheService,
+      @NonNull CampaignService campaignService, @NonNull Environment environment,
       @NonNull InterpolatedMeasurementsValidationService validationService,
+      @NonNull LocalInterpolationService localInterpolationService,
       @NonNull RestTemplate restTemplateShortTimeout) {
+    this.cacheService = cacheService;
+    this.environment = environment;
     this.campaignService = campaignService;
     this.validationService = validationService;
+    this.localInterpolationService = localInterpolationService;
     this.restTemplateShortTimeout = restTemplateShortTimeout;
 
     JavaTimeModule timeModule = new JavaTimeModule();
@@ -80,10 +133,29 @@ public class InterpolatedMeasurementsService {
 
     this.tuiObjectMapper = JsonMapper.builder().enable(JsonReadFeature.ALLOW_NON_NUMERIC_NUMBERS)
         .addModule(timeModule).build();
+  }
+
+  @PostConstruct
+  public void init() {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      // TUI requests only wait for I/O, so a virtual thread per request is cheaper than a pool.
+      SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("tui-");
+      executor.setVirtualThreads(true);
+      executor.setConcurrencyLimit(tuiParallelism);
+
+      tuiExecutor = executor;
+    } else {
+      tuiExecutor = Executors.newFixedThreadPool(tuiParallelism);
+    }
+  }
 
-    this.tuiResponseListType = tuiObjectMapper.getTypeFactory()
-        .constructCollectionType(ArrayList.class,
-            GetInterpolatedMeasurementValueResponse.class);
+  @PreDestroy
+  public void shutdown() {
+    if (tuiExecutor instanceof ExecutorService executorService) {
+      executorService.shutdownNow();
+    } else if (tuiExecutor instanceof SimpleAsyncTaskExecutor executor) {
+      executor.close();
+    }
   }
 
   public GetInterpolatedMeasurementResponse queryInterpolatedMeasurements(String campaignId,
@@ -103,9 +175,6 @@ public class InterpolatedMeasurementsService {
 
     Sites site = campaignOptional.get().getSite();
 
-    GetInterpolatedMeasurementsRequest getRequest = new GetInterpolatedMeasurementsRequest(
-        campaignId);
-
     Coordinates minCoordinates = site.getMinCoordinates();
 
     if (searchRequest.isMinCoordinatesPresent()) {
@@ -128,10 +197,6 @@ public class InterpolatedMeasurementsService {
 
     LocalDateTime startTime = LocalDateTime.now();
 
-    List<GetInterpolatedMeasurementsLocationRequest> locations = new ArrayList<>();
-
-    float x = minCoordinates.getX();
-    float y = minCoordinates.getY();
     float resolution;
 
     if (searchRequest.getTileResolution() != null) {
@@ -146,84 +211,264 @@ public class InterpolatedMeasurementsService {
       resolution = site.getMapTileResolution();
     }
 
-    while (x <= maxCoordinates.getX()) {
-      while (y <= maxCoordinates.getY()) {
-        locations.add(new GetInterpolatedMeasurementsLocationRequest(x, y));
+    boolean generateFakeData = Boolean.TRUE.equals(searchRequest.getGenerateFakeData());
 
-        y += resolution;
+    InterpolationEngine engine = searchRequest.getEngine() != null ? searchRequest.getEngine()
+        : site.getInterpolationEngine() != null ? site.getInterpolationEngine() : defaultEngine;
 
-      }
+    InterpolatedMeasurementsCacheService.Key cacheKey =
+        cacheService.key(campaignId, minCoordinates, maxCoordinates, resolution, engine);
 
-      y = minCoordinates.getY();
-      x += resolution;
-    }
+    if (!generateFakeData) {
+      Optional<GetInterpolatedMeasurementResponse> cachedResponse = cacheService.get(cacheKey);
 
-    getRequest.setLocations(locations);
+      if (cachedResponse.isPresent()) {
+        return cachedResponse.get();
+      }
+    }
 
-    response.setTileResolution(resolution);
-    response.setMinCoordinates(minCoordinates);
-    response.setMaxCoordinates(maxCoordinates);
+    // Locations are computed by index, adding up the resolution would accumulate rounding errors.
+    response.initGrid(campaignId, resolution, minCoordinates, maxCoordinates,
+        gridSize(minCoordinates.getX(), maxCoordinates.getX(), resolution),
+        gridSize(minCoordinates.getY(), maxCoordinates.getY(), resolution));
 
-    if (Boolean.TRUE.equals(searchRequest.getGenerateFakeData())) {
-      generateFakeData(campaignId, locations, response);
+    if (generateFakeData) {
+      generateFakeData(response);
     } else {
-      fetchData(campaignId, getRequest, response);
+      interpolate(engine, campaignId, response);
+
+      if (!response.isDataReceived() && fallbackEnabled) {
+        InterpolationEngine fallbackEngine =
+            engine == InterpolationEngine.TUI ? InterpolationEngine.LOCAL : InterpolationEngine.TUI;
+
+        log.warn("No interpolated measurements from {} for campaign {}, falling back to {}.",
+            engine, campaignId, fallbackEngine);
+
+        interpolate(fallbackEngine, campaignId, response);
+      }
+
+      // Partial grids are not cached, so failed shards are requested again.
+      if (response.isDataReceived() && !response.isPartial()) {
+        cacheService.put(cacheKey, response);
+      }
     }
 
-    log.info("Got response with {} values in {}.", response.getValues().size(),
+    log.info("Got response with {} values in {}.", response.getSize(),
         Duration.between(startTime, LocalDateTime.now()));
 
     return response;
   }
 
-  private void fetchData(String campaignId, GetInterpolatedMeasurementsRequest getRequest,
+  /**
+   * @return Number of grid locations from min to max, both included.
+   */
+  private static int gridSize(float min, float max, float resolution) {
+    // Tolerate rounding errors of bounds which are multiples of the resolution.
+    return (int) Math.floor((max - min) / resolution + 1e-4) + 1;
+  }
+
+  private void interpolate(InterpolationEngine engine, String campaignId,
+      GetInterpolatedMeasurementResponse result) {
+    if (engine == InterpolationEngine.LOCAL) {
+      interpolateLocally(campaignId, result);
+    } else {
+      fetchData(campaignId, result);
+    }
+
+    if (result.isDataReceived()) {
+      result.setEngine(engine);
+    }
+  }
+
+  private void interpolateLocally(String campaignId, GetInterpolatedMeasurementResponse result) {
+    try {
+      result.setDataReceived(localInterpolationService.interpolate(campaignId, result));
+    } catch (Exception e) {
+      log.error("Failed to interpolate AGV measurements for campaign {}: {}", campaignId,
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Requests the grid from TUI in shards of at most the configured number of locations, with at
+   * most the configured number of concurrent requests. Failed shards do not discard the others,
+   * the grid is marked as partial instead.
+   */
+  private void fetchData(String campaignId, GetInterpolatedMeasurementResponse result) {
+    int shardSizeY = Math.max(1, Math.min(result.getSizeY(), tuiShardSize));
+    int shardSizeX = Math.max(1, tuiShardSize / shardSizeY);
+
+    List<CompletableFuture<GetInterpolatedMeasurementShardResponse>> shards = new ArrayList<>();
+
+    for (int fromX = 0; fromX < result.getSizeX(); fromX += shardSizeX) {
+      for (int fromY = 0; fromY < result.getSizeY(); fromY += shardSizeY) {
+        Shard shard = new Shard(fromX, Math.min(fromX + shardSizeX, result.getSizeX()), fromY,
+            Math.min(fromY + shardSizeY, result.getSizeY()));
+
+        shards.add(CompletableFuture.supplyAsync(() -> fetchShard(campaignId, shard, result),
+            tuiExecutor));
+      }
+    }
+
+    result.setShards(shards.stream().map(CompletableFuture::join).toList());
+
+    long received =
+        result.getShards().stream().filter(GetInterpolatedMeasurementShardResponse::isDataReceived)
+            .count();
+
+    result.setDataReceived(received > 0);
+    result.setPartial(received > 0 && received < result.getShards().size());
+  }
+
+  private GetInterpolatedMeasurementShardResponse fetchShard(String campaignId, Shard shard,
       GetInterpolatedMeasurementResponse result) {
+    GetInterpolatedMeasurementShardResponse status = new GetInterpolatedMeasurementShardResponse();
+    status.setMinX(result.getX(shard.fromX() * result.getSizeY()));
+    status.setMinY(result.getY(shard.fromY()));
+    status.setMaxX(result.getX((shard.toX() - 1) * result.getSizeY()));
+    status.setMaxY(result.getY(shard.toY() - 1));
+    status.setSize((shard.toX() - shard.fromX()) * (shard.toY() - shard.fromY()));
+
     try {
+      GetInterpolatedMeasurementsRequest getRequest =
+          new GetInterpolatedMeasurementsRequest(campaignId);
+
+      if (tuiGridDescriptor) {
+        getRequest.setGrid(new GetInterpolatedMeasurementsGridRequest(status.getMinX(),
+            status.getMinY(), result.getTileResolution(), shard.toX() - shard.fromX(),
+            shard.toY() - shard.fromY()));
+      } else {
+        List<GetInterpolatedMeasurementsLocationRequest> locations =
+            new ArrayList<>(status.getSize());
+
+        for (int indexX = shard.fromX(); indexX < shard.toX(); indexX++) {
+          for (int indexY = shard.fromY(); indexY < shard.toY(); indexY++) {
+            int index = indexX * result.getSizeY() + indexY;
+
+            locations.add(new GetInterpolatedMeasurementsLocationRequest(result.getX(index),
+                result.getY(index)));
+          }
+        }
+
+        getRequest.setLocations(locations);
+      }
+
       HttpHeaders headers = new HttpHeaders();
       headers.setContentType(MediaType.APPLICATION_JSON);
+      headers.setAccept(List.of(MediaType.APPLICATION_JSON));
 
-      ResponseEntity<String> rawResponse;
+      HttpStatusCode statusCode = restTemplateShortTimeout.execute(tuiBackendUrl, HttpMethod.GET,
+          restTemplateShortTimeout.httpEntityCallback(new HttpEntity<>(getRequest, headers)),
+          response -> {
+            if (response.getStatusCode().is2xxSuccessful()) {
+              readValues(response.getBody(), result);
+            }
 
-      rawResponse = restTemplateShortTimeout.exchange(tuiBackendUrl, HttpMethod.GET,
-          new HttpEntity<>(getRequest, headers), String.class);
+            return response.getStatusCode();
+          });
 
-      if (rawResponse.getStatusCode().is2xxSuccessful()) {
-        result.setValues(tuiObjectMapper.readValue(rawResponse.getBody(), tuiResponseListType));
-        result.setDataReceived(true);
+      if (statusCode != null && statusCode.is2xxSuccessful()) {
+        status.setDataReceived(true);
       } else {
+        status.setError("Response " + statusCode);
+
         log.error("Failed to pull AGV measurements for campaign {} with response {}.", campaignId,
-            rawResponse.getStatusCode());
+            statusCode);
       }
     } catch (Exception e) {
+      status.setError(e.getMessage());
+
       log.error("Failed to pull AGV measurements for campaign {}: {}", campaignId, e.getMessage());
     }
+
+    return status;
   }
 
-  private void generateFakeData(String campaignId,
-      List<GetInterpolatedMeasurementsLocationRequest> locations,
-      GetInterpolatedMeasurementResponse result) {
-    List<GetInterpolatedMeasurementValueResponse> fakeValues = new ArrayList<>();
+  /**
+   * Reads the TUI values with the streaming parser straight into the grid, without building a value
+   * object per location. Non-numeric values like NaN are read as NaN.
+   */
+  private void readValues(InputStream body, GetInterpolatedMeasurementResponse result)
+      throws IOException {
+    try (JsonParser parser = tuiObjectMapper.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected an array of values");
+      }
+
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        float x = Float.NaN;
+        float y = Float.NaN;
+        float dataRate = Float.NaN;
+        float latency = Float.NaN;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.currentName();
+          parser.nextToken();
+
+          switch (field) {
+            case "x" -> x = readFloat(parser);
+            case "y" -> y = readFloat(parser);
+            case "datarate" -> dataRate = readFloat(parser);
+            case "latency" -> latency = readFloat(parser);
+            default -> parser.skipChildren();
+          }
+        }
+
+        if (!Float.isNaN(x) && !Float.isNaN(y)) {
+          setValue(result, x, y, dataRate, latency);
+        }
+      }
+    }
+  }
 
-    for (GetInterpolatedMeasurementsLocationRequest location : locations) {
-      GetInterpolatedMeasurementValueResponse fakeValue = new GetInterpolatedMeasurementValueResponse();
+  private static float readFloat(JsonParser parser) throws IOException {
+    if (parser.currentToken().isNumeric()) {
+      return parser.getFloatValue();
+    }
 
-      fakeValue.setCampaignId(campaignId);
-      fakeValue.setX(location.x());
-      fakeValue.setY(location.y());
+    if (parser.currentToken() == JsonToken.VALUE_STRING) {
+      try {
+        return Float.parseFloat(parser.getText());
+      } catch (NumberFormatException e) {
+        return Float.NaN;
+      }
+    }
 
+    return Float.NaN;
+  }
+
+  /**
+   * Sets the values of the grid location nearest to the given coordinates, values outside of the
+   * grid are ignored.
+   */
+  private static void setValue(GetInterpolatedMeasurementResponse grid, float x, float y,
+      float dataRate, float latency) {
+    int indexX = Math.round((x - grid.getMinCoordinates().getX()) / grid.getTileResolution());
+    int indexY = Math.round((y - grid.getMinCoordinates().getY()) / grid.getTileResolution());
+
+    if (indexX >= 0 && indexX < grid.getSizeX() && indexY >= 0 && indexY < grid.getSizeY()) {
+      grid.getDataRates()[indexX * grid.getSizeY() + indexY] = dataRate;
+      grid.getLatencies()[indexX * grid.getSizeY() + indexY] = latency;
+    }
+  }
+
+  /**
+   * Grid location index ranges of a shard, the upper bounds excluded.
+   */
+  private record Shard(int fromX, int toX, int fromY, int toY) {
+
+  }
+
+  private void generateFakeData(GetInterpolatedMeasurementResponse result) {
+    for (int i = 0; i < result.getSize(); i++) {
       if (RandomUtils.insecure().randomFloat(0f, 1f) < 0.95f) {
-        fakeValue.setDatarate(RandomUtils.insecure().randomFloat(5f, 300f));
-        fakeValue.setLatency(RandomUtils.insecure().randomFloat(1f, 100f));
-      } else {
-        // Insert some NaN randomly as this value can be returned by TUI as well.
-        fakeValue.setDatarate(Float.NaN);
-        fakeValue.setLatency(Float.NaN);
+        result.getDataRates()[i] = RandomUtils.insecure().randomFloat(5f, 300f);
+        result.getLatencies()[i] = RandomUtils.insecure().randomFloat(1f, 100f);
       }
 
-      fakeValues.add(fakeValue);
+      // Other values stay NaN as this value can be returned by TUI as well.
     }
 
-    result.setValues(fakeValues);
     result.setDataReceived(false);
   }
 }
@@ -70,4 +70,17 @@ public class InterpolatedMeasurementsValidationService {
       throw new ValidationException(validation);
     }
   }
+
+  public void validateHeatmapTile(int zoom, int levels) throws ValidationException {
+    Validation validation = new Validation();
+
+    if (zoom < 0 || zoom >= levels) {
+      validation.addError(SystemErrorCodes.VALIDATION_ERROR,
+          "Zoom level must be between 0 and " + (levels - 1));
+    }
+
+    if (validation.hasErrors()) {
+      throw new ValidationException(validation);
+    }
+  }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.services;
+
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.utils.KdTree;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * <p>
+ * Interpolates AGV measurements within the backend by inverse-distance weighting of the nearest
+ * stored measurements of the campaign.
+ * </p>
+ *
+ * <p>
+ * Valid measurements around the grid are loaded once per request into a k-d tree. Columns of the
+ * grid are interpolated in parallel on a dedicated fork-join pool, so large grids do not block the
+ * common pool.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class LocalInterpolationService {
+
+  private static final String CAMPAIGN_ID = AGVMeasurements.Fields.campaign + "._id";
+  private static final String X = AGVMeasurements.Fields.coordinates + ".x";
+  private static final String Y = AGVMeasurements.Fields.coordinates + ".y";
+  private static final String Z = AGVMeasurements.Fields.coordinates + ".z";
+
+  private final @NonNull MongoTemplate mongoTemplate;
+
+  /**
+   * Number of nearest measurements weighted for each grid location.
+   */
+  @Value("${app.interpolation.local.neighbours:8}")
+  private int neighbours;
+
+  /**
+   * Power of the inverse distance, higher values weight nearer measurements more.
+   */
+  @Value("${app.interpolation.local.power:2}")
+  private double power;
+
+  /**
+   * Parallelism of the interpolation pool, the number of available processors if not positive.
+   */
+  @Value("${app.interpolation.local.parallelism:0}")
+  private int parallelism;
+
+  /**
+   * Number of tiles around the grid whose measurements are loaded as well, so values at the
+   * borders are still weighted by measurements outside of the grid.
+   */
+  @Value("${app.interpolation.local.margin-tiles:16}")
+  private int marginTiles;
+
+  private ForkJoinPool pool;
+
+  @PostConstruct
+  public void init() {
+    pool = new ForkJoinPool(
+        parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Fills the values of the grid.
+   *
+   * @param campaignId Campaign ID
+   * @param grid Grid to fill
+   * @return {@code false} if the campaign has no valid measurements near the grid.
+   */
+  public boolean interpolate(String campaignId, GetInterpolatedMeasurementResponse grid) {
+    if (grid.getSize() == 0) {
+      return false;
+    }
+
+    Samples samples = load(campaignId, grid);
+
+    if (samples.size == 0) {
+      return false;
+    }
+
+    KdTree tree = new KdTree(Arrays.copyOf(samples.x, samples.size),
+        Arrays.copyOf(samples.y, samples.size));
+
+    try {
+      // Each task fills the locations of one x coordinate.
+      pool.submit(() -> IntStream.range(0, grid.getSizeX()).parallel().forEach(indexX -> {
+        int[] nearest = new int[Math.min(neighbours, samples.size)];
+        float[] squaredDistances = new float[nearest.length];
+
+        for (int i = indexX * grid.getSizeY(); i < (indexX + 1) * grid.getSizeY(); i++) {
+          int count = tree.nearest(grid.getX(i), grid.getY(i), nearest, squaredDistances);
+
+          grid.getDataRates()[i] =
+              weightedMean(samples.dataRates, nearest, squaredDistances, count);
+          grid.getLatencies()[i] =
+              weightedMean(samples.latencies, nearest, squaredDistances, count);
+        }
+      })).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+
+      throw new IllegalStateException("Interpolation interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Interpolation failed", e.getCause());
+    }
+
+    return true;
+  }
+
+  /**
+   * @return Inverse-distance weighted mean of the non-NaN values or NaN if there is none. The value
+   *         of a measurement at the exact location is returned as is.
+   */
+  private float weightedMean(float[] values, int[] nearest, float[] squaredDistances,
+      int count) {
+    double sum = 0;
+    double weights = 0;
+
+    for (int i = 0; i < count; i++) {
+      float value = values[nearest[i]];
+
+      if (Float.isNaN(value)) {
+        continue;
+      }
+
+      if (squaredDistances[i] == 0) {
+        return value;
+      }
+
+      double weight = Math.pow(squaredDistances[i], -power / 2);
+
+      sum += weight * value;
+      weights += weight;
+    }
+
+    return weights == 0 ? Float.NaN : (float) (sum / weights);
+  }
+
+  private Samples load(String campaignId, GetInterpolatedMeasurementResponse grid) {
+    float margin = marginTiles * grid.getTileResolution();
+    int last = grid.getSize() - 1;
+
+    // Bounds exclude measurements without coordinates, a missing z is valid as for the tiles.
+    Document filter = new Document(CAMPAIGN_ID, campaignId)
+        .append(X, new Document("$gte", grid.getX(0) - margin)
+            .append("$lte", grid.getX(last) + margin))
+        .append(Y, new Document("$gte", grid.getY(0) - margin)
+            .append("$lte", grid.getY(last) + margin))
+        .append("$or", List.of(new Document(Z, null),
+            new Document(Z, new Document("$gt", AGVMeasurementService.INVALID_THRESHOLD))));
+    Document projection = new Document("_id", 0).append(X, 1).append(Y, 1)
+        .append(AGVMeasurements.Fields.dataRate, 1).append(AGVMeasurements.Fields.latency, 1);
+
+    Samples samples = new Samples();
+
+    // Raw documents skip the entity mapping, only four numbers are needed per measurement.
+    for (Document document : mongoTemplate.getCollection(
+        mongoTemplate.getCollectionName(AGVMeasurements.class)).find(filter)
+        .projection(projection)) {
+      Document coordinates = document.get(AGVMeasurements.Fields.coordinates, Document.class);
+      float x = toFloat(coordinates.get("x"));
+      float y = toFloat(coordinates.get("y"));
+
+      if (Float.isNaN(x) || Float.isNaN(y)) {
+        continue;
+      }
+
+      samples.add(x, y, toFloat(document.get(AGVMeasurements.Fields.dataRate)),
+          toFloat(document.get(AGVMeasurements.Fields.latency)));
+    }
+
+    return samples;
+  }
+
+  private static float toFloat(Object value) {
+    return value instanceof Number number ? number.floatValue() : Float.NaN;
+  }
+
+  /**
+   * Growable columns of the loaded measurements.
+   */
+  private static class Samples {
+
+    private float[] x = new float[1024];
+    private float[] y = new float[1024];
+    private float[] dataRates = new float[1024];
+    private float[] latencies = new float[1024];
+    private int size;
+
+    private void add(float x, float y, float dataRate, float latency) {
+      if (size == this.x.length) {
+        int capacity = size * 2;
+
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        dataRates = Arrays.copyOf(dataRates, capacity);
+        latencies = Arrays.copyOf(latencies, capacity);
+      }
+
+      this.x[size] = x;
+      this.y[size] = y;
+      dataRates[size] = dataRate;
+      latencies[size] = latency;
+      size++;
+    }
+  }
+}
@@ -65,7 +65,7 @@ public class MobileMeasurementService {
   public MobileMeasurements post(PostMobileMeasurementRequest request) {
     Optional<Campaigns> campaign = campaignDao.findById(request.getCampaignId());
 
-    return measurementDao.save(request.toEntity(campaign));
+    return measurementDao.insert(request.toEntity(campaign));
   }
 
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import com.desire.model.indexes.IndexedQueries;
+import com.desire.model.indexes.IndexedQuery;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the indexes declared in {@link IndexedQueries} and verifies the query plans of their
+ * query shapes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class MongoIndexService {
+
+  private static final String COLLECTION_SCAN = "COLLSCAN";
+
+  private final @NonNull MongoTemplate mongoTemplate;
+  private final @NonNull TimeSeriesCollectionService timeSeriesCollectionService;
+
+  /**
+   * Creates missing indexes in the background after startup, so the application does not wait for
+   * index builds on large collections. Existing indexes which must become unique are converted in
+   * place, existing indexes which must not be unique anymore are replaced. Indexes stay without
+   * unique constraint as long as their collection contains duplicates, which can be removed by the
+   * {@link com.desire.tasks.IndexDeduplicationTask}.
+   */
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureIndexes() {
+    log.info("Ensuring {} MongoDB indexes.", IndexedQueries.ALL.size());
+
+    for (IndexedQuery query : IndexedQueries.ALL) {
+      try {
+        ensureIndex(query);
+      } catch (Exception e) {
+        log.error("Cannot create index for query {}.", query.name(), e);
+      }
+    }
+
+    log.info("MongoDB indexes ensured.");
+  }
+
+  private void ensureIndex(IndexedQuery query) {
+    IndexOperations indexOperations = mongoTemplate.indexOps(query.entityClass());
+
+    Document keys = query.index().getIndexKeys();
+    Document options = new Document(query.index().getIndexOptions());
+
+    boolean unique =
+        query.unique() && !timeSeriesCollectionService.isTimeSeries(query.entityClass());
+
+    String defaultName = getDefaultName(keys);
+    String collection = mongoTemplate.getCollectionName(query.entityClass());
+
+    Optional<IndexInfo> existingIndex = indexOperations.getIndexInfo().stream()
+        .filter(indexInfo -> defaultName.equals(indexInfo.getName())).findAny();
+
+    if (existingIndex.isPresent() && existingIndex.get().isUnique() && !unique) {
+      log.info("Replacing index {} for query {}, unique constraint removed.", defaultName,
+          query.name());
+
+      indexOperations.dropIndex(defaultName);
+      existingIndex = Optional.empty();
+    }
+
+    boolean duplicates = unique && !existingIndex.map(IndexInfo::isUnique).orElse(false)
+        && hasDuplicates(collection, keys);
+
+    if (duplicates) {
+      log.warn("Collection {} contains duplicates for unique index {} of query {}, the index is "
+          + "kept without unique constraint.", collection, defaultName, query.name());
+    }
+
+    if (existingIndex.isEmpty()) {
+      // Built without unique constraint if there are duplicates, so the collection has an index
+      // anyway.
+      if (unique && !duplicates) {
+        options.append("unique", true);
+      }
+
+      indexOperations.ensureIndex(new IndexDefinition() {
+
+        @Override
+        public Document getIndexKeys() {
+          return keys;
+        }
+
+        @Override
+        public Document getIndexOptions() {
+          return options;
+        }
+      });
+    }
+
+    if (existingIndex.isPresent() && unique && !existingIndex.get().isUnique() && !duplicates) {
+      try {
+        makeUnique(collection, defaultName);
+
+        log.info("Added unique constraint to index {} for query {}.", defaultName, query.name());
+      } catch (RuntimeException e) {
+        log.warn("Cannot add unique constraint to index {} for query {}, the index is kept without "
+            + "it: '{}'.", defaultName, query.name(), e.getMessage());
+      }
+    }
+
+    log.debug("Ensured index {} for query {}.", defaultName, query.name());
+  }
+
+  /**
+   * Adds the unique constraint to an existing index without rebuilding it, so the index remains
+   * usable if converting fails, e.g. due to duplicates written in the meantime. Requires MongoDB
+   * 6.0 or later.
+   */
+  private void makeUnique(String collection, String indexName) {
+    mongoTemplate.getDb().runCommand(new Document("collMod", collection).append("index",
+        new Document("name", indexName).append("prepareUnique", true)));
+
+    mongoTemplate.getDb().runCommand(new Document("collMod", collection).append("index",
+        new Document("name", indexName).append("unique", true)));
+  }
+
+  /**
+   * @return Whether documents share the index keys, including documents missing a key which are
+   *         indexed as {@code null}.
+   */
+  private boolean hasDuplicates(String collection, Document keys) {
+    return mongoTemplate.getCollection(collection).aggregate(findDuplicates(keys, true))
+        .allowDiskUse(true).first() != null;
+  }
+
+  /**
+   * Returns a pipeline grouping the documents by the index keys. Each group with duplicates holds
+   * the IDs of its documents in {@code ids}, the latest created document first.
+   *
+   * @param keys Index keys
+   * @param includeMissing {@code true} to include documents missing a key
+   * @return Aggregation pipeline.
+   */
+  public static List<Document> findDuplicates(Document keys, boolean includeMissing) {
+    Document groupKeys = new Document();
+    Document existing = new Document();
+    int i = 0;
+
+    // Group keys must not contain dots.
+    for (String key : keys.keySet()) {
+      groupKeys.append("key" + i++, "$" + key);
+      existing.append(key, new Document("$ne", null));
+    }
+
+    List<Document> pipeline = new ArrayList<>();
+
+    if (!includeMissing) {
+      pipeline.add(new Document("$match", existing));
+    }
+
+    pipeline.add(new Document("$sort", new Document("createMoment", -1).append("_id", -1)));
+    pipeline.add(new Document("$group",
+        new Document("_id", groupKeys).append("ids", new Document("$push", "$_id"))
+            .append("count", new Document("$sum", 1))));
+    pipeline.add(new Document("$match", new Document("count", new Document("$gt", 1))));
+
+    return pipeline;
+  }
+
+  /**
+   * @return Name of MongoDB for indexes without explicit name.
+   */
+  public static String getDefaultName(Document keys) {
+    return keys.entrySet().stream().map(entry -> entry.getKey() + "_" + entry.getValue())
+        .collect(Collectors.joining("_"));
+  }
+
+  /**
+   * Runs {@code explain} on all declared query shapes.
+   *
+   * @return Winning plan per query shape.
+   */
+  public List<QueryPlan> explain() {
+    List<QueryPlan> plans = new ArrayList<>();
+
+    for (IndexedQuery query : IndexedQueries.ALL) {
+      String collection = mongoTemplate.getCollectionName(query.entityClass());
+
+      Document find = new Document("find", collection).append("filter", query.filter());
+
+      if (!query.sort().isEmpty()) {
+        find.append("sort", query.sort()).append("limit", 1);
+      }
+
+      Document result = mongoTemplate.getDb()
+          .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+
+      List<String> stages = new ArrayList<>();
+      List<String> indexes = new ArrayList<>();
+
+      Document queryPlanner = result.get("queryPlanner", Document.class);
+
+      if (queryPlanner != null) {
+        collectStages(queryPlanner.get("winningPlan"), stages, indexes);
+      }
+
+      QueryPlan plan = new QueryPlan(query.name(), collection, stages, indexes,
+          stages.contains(COLLECTION_SCAN));
+
+      if (plan.collectionScan()) {
+        log.warn("Query {} on collection {} uses a collection scan.", query.name(), collection);
+      }
+
+      plans.add(plan);
+    }
+
+    return plans;
+  }
+
+  /**
+   * Collects the stage and index names of all nested stages of a query plan.
+   */
+  private void collectStages(Object plan, List<String> stages, List<String> indexes) {
+    if (plan instanceof Document document) {
+      if (document.get("stage") instanceof String stage) {
+        stages.add(stage);
+      }
+
+      if (document.get("indexName") instanceof String index) {
+        indexes.add(index);
+      }
+
+      document.values().forEach(value -> collectStages(value, stages, indexes));
+    } else if (plan instanceof List<?> list) {
+      list.forEach(value -> collectStages(value, stages, indexes));
+    }
+  }
+
+  /**
+   * @param name Name of the query shape
+   * @param collection Collection name
+   * @param stages Stages of the winning plan
+   * @param indexes Indexes used by the winning plan
+   * @param collectionScan {@code true} if the winning plan contains a collection scan
+   */
+  public record QueryPlan(String name, String collection, List<String> stages,
+      List<String> indexes, boolean collectionScan) {
+
+  }
+}
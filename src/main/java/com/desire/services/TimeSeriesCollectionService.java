@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.services;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.CollectionOptions.TimeSeriesOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Service;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.MobileMeasurements;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Stores AGV and mobile measurements in MongoDB time-series collections if enabled.
+ * </p>
+ *
+ * <p>
+ * The collections are created with the measure moment as time field before any measurement is
+ * written. The meta field only holds the campaign, site, organization and AGV IDs, so it does not
+ * change with updates of the campaign and measurements of a campaign share their buckets, see
+ * {@link com.desire.model.callbacks.MeasurementMetaCallback}. Existing regular collections cannot
+ * be converted in place and are kept as they are, so time-series features are only used for
+ * collections that actually are time-series collections.
+ * </p>
+ *
+ * <p>
+ * Time-series collections do not support replacing documents, so measurements must always be
+ * inserted.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class TimeSeriesCollectionService {
+
+  public static final String META_FIELD = "meta";
+
+  private static final Map<Class<?>, String> TIME_FIELDS = Map.of( //
+      AGVMeasurements.class, AGVMeasurements.Fields.measureMoment, //
+      MobileMeasurements.class, MobileMeasurements.Fields.measureMoment);
+
+  private final @NonNull MongoTemplate mongoTemplate;
+
+  private final Set<Class<?>> timeSeriesClasses = ConcurrentHashMap.newKeySet();
+
+  @Value("${app.storage.time-series-measurements:false}")
+  private boolean timeSeriesEnabled;
+
+  @PostConstruct
+  public void createCollections() {
+    for (Map.Entry<Class<?>, String> entry : TIME_FIELDS.entrySet()) {
+      String collectionName = mongoTemplate.getCollectionName(entry.getKey());
+
+      Document collectionInfo = mongoTemplate.getDb().listCollections()
+          .filter(new Document("name", collectionName)).first();
+
+      if (collectionInfo == null && timeSeriesEnabled) {
+        mongoTemplate.createCollection(entry.getKey(),
+            CollectionOptions.empty().timeSeries(TimeSeriesOptions.timeSeries(entry.getValue())
+                .metaField(META_FIELD).granularity(Granularity.SECONDS)));
+
+        log.info("Created time-series collection {}.", collectionName);
+
+        timeSeriesClasses.add(entry.getKey());
+      } else if (collectionInfo != null && "timeseries".equals(collectionInfo.getString("type"))) {
+        String metaField = collectionInfo.get("options", Document.class)
+            .get("timeseries", Document.class).getString("metaField");
+
+        if (!META_FIELD.equals(metaField)) {
+          log.warn("Time-series collection {} has meta field {} instead of {}, recreate it to "
+              + "group measurements by campaign.", collectionName, metaField, META_FIELD);
+        }
+
+        timeSeriesClasses.add(entry.getKey());
+      } else if (collectionInfo != null && timeSeriesEnabled) {
+        log.warn("Collection {} already exists as regular collection and is not converted to a "
+            + "time-series collection.", collectionName);
+      }
+    }
+  }
+
+  /**
+   * @param entityClass Entity class determining the collection
+   * @return {@code true} if the collection of the entity is a time-series collection.
+   */
+  public boolean isTimeSeries(Class<?> entityClass) {
+    return timeSeriesClasses.contains(entityClass);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.tasks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.desire.services.AGVMeasurementTileService;
+import com.desire.services.HeatmapTileService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the measurement tiles of campaigns whose tiles were never built, missed measurements or
+ * have an outdated resolution, campaign by campaign while the application is running. Rebuilds are
+ * claimed in one run and, after the grace period, performed in a later run, so the scheduler thread
+ * never waits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class AGVMeasurementTileRebuildTask {
+
+  private final Lock lock = new ReentrantLock();
+
+  private final @NonNull AGVMeasurementTileService measurementTileService;
+  private final @NonNull HeatmapTileService heatmapTileService;
+
+  /**
+   * Maximum time between creating and storing a measurement, including clock differences.
+   */
+  @Value("${app.heatmap.rebuild.grace-ms:5000}")
+  private long grace;
+
+  @Scheduled(initialDelay = 1L, fixedDelay = 1L, timeUnit = TimeUnit.MINUTES)
+  public void rebuild() {
+    if (lock.tryLock()) {
+      log.debug("Measurement tile rebuild task started.");
+
+      try {
+        for (String campaignId : measurementTileService.findCampaignIdsToRebuild()) {
+          if (measurementTileService.rebuild(campaignId, Duration.ofMillis(grace))) {
+            heatmapTileService.evict(campaignId);
+          }
+        }
+
+        log.debug("Measurement tile rebuild task finished.");
+      } catch (Exception e) {
+        log.error("Error rebuilding measurement tiles", e);
+      } finally {
+        lock.unlock();
+      }
+    } else {
+      log.info("Measurement tile rebuild task is already running.");
+    }
+  }
+}
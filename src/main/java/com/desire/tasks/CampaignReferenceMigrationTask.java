@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.desire.model.callbacks.CampaignReferenceCallback;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Sites;
+import com.desire.services.CampaignReferenceService;
+import com.desire.services.TimeSeriesCollectionService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migrates embedded campaigns to slim campaign references while the application is running, if
+ * slim campaign references are enabled. Documents are migrated campaign by campaign, so each update
+ * only touches a bounded part of the collection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class CampaignReferenceMigrationTask {
+
+  private final Lock lock = new ReentrantLock();
+
+  private final @NonNull CampaignReferenceService campaignReferenceService;
+  private final @NonNull MongoTemplate mongoTemplate;
+  private final @NonNull TimeSeriesCollectionService timeSeriesCollectionService;
+
+  @Scheduled(initialDelay = 1L, fixedRate = 60L, timeUnit = TimeUnit.MINUTES)
+  public void migrate() {
+    if (!campaignReferenceService.isSlimReferencesEnabled()) {
+      return;
+    }
+
+    if (lock.tryLock()) {
+      log.debug("Campaign reference migration task started.");
+
+      try {
+        for (Map.Entry<Class<?>, String> entry : CampaignReferenceCallback.CAMPAIGN_PATHS
+            .entrySet()) {
+          // Time-series collections do not support pipeline updates, their documents keep the
+          // embedded campaign.
+          if (!timeSeriesCollectionService.isTimeSeries(entry.getKey())) {
+            migrate(mongoTemplate.getCollectionName(entry.getKey()), entry.getValue());
+          }
+        }
+
+        log.debug("Campaign reference migration task finished.");
+      } catch (Exception e) {
+        log.error("Error migrating campaign references", e);
+      } finally {
+        lock.unlock();
+      }
+    } else {
+      log.info("Campaign reference migration task is already running.");
+    }
+  }
+
+  private void migrate(String collectionName, String path) {
+    MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+
+    // Only full embedded campaigns contain a name.
+    Bson embeddedFilter = Filters.exists(path + "." + Campaigns.Fields.name);
+
+    List<String> campaignIds = collection.distinct(path + "._id", embeddedFilter, String.class)
+        .into(new ArrayList<>());
+
+    String site = path + "." + Campaigns.Fields.site;
+    List<Bson> pipeline = List.of(new Document("$set", new Document(path,
+        new Document("_id", "$" + path + "._id").append(Campaigns.Fields.site,
+            new Document("_id", "$" + site + "._id").append(Sites.Fields.organization,
+                new Document("_id", "$" + site + "." + Sites.Fields.organization + "._id"))))));
+
+    for (String campaignId : campaignIds) {
+      UpdateResult result = collection.updateMany(
+          Filters.and(Filters.eq(path + "._id", campaignId), embeddedFilter), pipeline);
+
+      log.info("Migrated {} documents of collection {} for campaign {} to slim references.",
+          result.getModifiedCount(), collectionName, campaignId);
+    }
+  }
+}
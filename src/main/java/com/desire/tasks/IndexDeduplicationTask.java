@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.tasks;
+
+import java.util.List;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import com.desire.model.indexes.IndexedQueries;
+import com.desire.model.indexes.IndexedQuery;
+import com.desire.services.MongoIndexService;
+import com.desire.services.TimeSeriesCollectionService;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Removes documents sharing the keys of a unique index with another document, which prevent adding
+ * the unique constraint to the index. Of each group of duplicates the latest created document is
+ * kept. Documents missing a key are never removed, they are reported only.
+ * </p>
+ *
+ * <p>
+ * The migration runs once after startup if enabled. In dry-run mode, it only reports the documents
+ * it would remove. After removing duplicates, the unique constraints are added.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class IndexDeduplicationTask {
+
+  private final @NonNull MongoIndexService mongoIndexService;
+  private final @NonNull MongoTemplate mongoTemplate;
+  private final @NonNull TimeSeriesCollectionService timeSeriesCollectionService;
+
+  @Value("${app.indexes.deduplication.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.indexes.deduplication.dry-run:true}")
+  private boolean dryRun;
+
+  @Async
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrate() {
+    if (enabled) {
+      deduplicate(dryRun);
+    }
+  }
+
+  /**
+   * Removes or reports the duplicates of all unique indexes.
+   *
+   * @param dryRun {@code true} to only report the duplicates
+   * @return Number of removed or, in dry-run mode, removable documents.
+   */
+  public long deduplicate(boolean dryRun) {
+    long total = 0;
+
+    for (IndexedQuery query : IndexedQueries.ALL) {
+      // Time-series collections do not support unique indexes.
+      if (query.unique() && !timeSeriesCollectionService.isTimeSeries(query.entityClass())) {
+        total += deduplicate(query, dryRun);
+      }
+    }
+
+    if (total > 0 && !dryRun) {
+      mongoIndexService.ensureIndexes();
+    }
+
+    return total;
+  }
+
+  private long deduplicate(IndexedQuery query, boolean dryRun) {
+    String collectionName = mongoTemplate.getCollectionName(query.entityClass());
+    MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+
+    Document keys = query.index().getIndexKeys();
+    String indexName = MongoIndexService.getDefaultName(keys);
+
+    long all = 0;
+
+    for (Document duplicates : collection.aggregate(MongoIndexService.findDuplicates(keys, true))
+        .allowDiskUse(true)) {
+      all += duplicates.getInteger("count") - 1;
+    }
+
+    long count = 0;
+
+    for (Document duplicates : collection
+        .aggregate(MongoIndexService.findDuplicates(keys, false)).allowDiskUse(true)) {
+      List<Object> ids = duplicates.getList("ids", Object.class);
+      List<Object> removedIds = ids.subList(1, ids.size());
+
+      if (dryRun) {
+        log.info("Would remove documents {} of collection {} with keys {}, keeping {}.",
+            removedIds, collectionName, duplicates.get("_id"), ids.get(0));
+        count += removedIds.size();
+      } else {
+        count += collection.deleteMany(Filters.in("_id", removedIds)).getDeletedCount();
+      }
+    }
+
+    if (count > 0) {
+      log.warn("{} {} duplicates of collection {} for unique index {}.",
+          dryRun ? "Found" : "Removed", count, collectionName, indexName);
+    }
+
+    if (all > count) {
+      log.warn("{} duplicates of collection {} for unique index {} are missing a key and are not "
+          + "removed.", all - count, collectionName, indexName);
+    }
+
+    return count;
+  }
+}
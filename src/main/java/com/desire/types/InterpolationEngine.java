@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.types;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Engine computing interpolated measurement grids.
+ */
+@Schema(enumAsRef = true)
+public enum InterpolationEngine {
+
+  /**
+   * Interpolation by the TUI backend.
+   */
+  TUI,
+
+  /**
+   * Inverse-distance weighting of the stored AGV measurements within the backend.
+   */
+  LOCAL;
+
+}
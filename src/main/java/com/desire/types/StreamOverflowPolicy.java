@@ -0,0 +1,40 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.types;
+
+/**
+ * Handling of events published to a stream subscriber whose queue is full.
+ */
+public enum StreamOverflowPolicy {
+
+  /**
+   * Drops the oldest queued event.
+   */
+  DROP_OLDEST,
+
+  /**
+   * Drops all queued events, so the subscriber receives the latest event only. Suitable for
+   * streams of complete states.
+   */
+  COALESCE,
+
+  /**
+   * Drops all queued events and closes the stream, so the client has to reconnect.
+   */
+  DISCONNECT;
+
+}
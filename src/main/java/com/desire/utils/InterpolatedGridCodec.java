@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.utils;
+
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.model.entities.Coordinates;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Binary encoding of interpolated grids. All numbers are little-endian:
+ * </p>
+ *
+ * <pre>
+ * int32   magic "DSG1"
+ * int32   flags, bit 0 set if data was received
+ * int32   sizeX
+ * int32   sizeY
+ * float32 min x
+ * float32 min y
+ * float32 tile resolution
+ * float32 data rates [sizeX * sizeY]
+ * float32 latencies [sizeX * sizeY]
+ * </pre>
+ *
+ * <p>
+ * Values are ordered by x first and NaN where no value could be interpolated.
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class InterpolatedGridCodec {
+
+  public static final int MAGIC = 0x31475344;
+
+  public static final int HEADER_SIZE = 7 * Integer.BYTES;
+
+  private static final int DATA_RECEIVED = 1;
+
+  public static byte[] encode(GetInterpolatedMeasurementResponse grid) {
+    int size = grid.getSize();
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 2 * size * Float.BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+
+    buffer.putInt(MAGIC);
+    buffer.putInt(grid.isDataReceived() ? DATA_RECEIVED : 0);
+    buffer.putInt(grid.getSizeX());
+    buffer.putInt(grid.getSizeY());
+    buffer.putFloat(grid.getMinCoordinates() != null ? grid.getMinCoordinates().getX() : 0f);
+    buffer.putFloat(grid.getMinCoordinates() != null ? grid.getMinCoordinates().getY() : 0f);
+    buffer.putFloat(grid.getTileResolution());
+
+    buffer.asFloatBuffer().put(grid.getDataRates()).put(grid.getLatencies());
+
+    return buffer.array();
+  }
+
+  /**
+   * @throws IllegalArgumentException If the bytes are no encoded grid.
+   */
+  public static GetInterpolatedMeasurementResponse decode(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+    if (bytes.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Invalid grid header");
+    }
+
+    int flags = buffer.getInt();
+    int sizeX = buffer.getInt();
+    int sizeY = buffer.getInt();
+    Coordinates minCoordinates = new Coordinates(buffer.getFloat(), buffer.getFloat(), 0f);
+    float tileResolution = buffer.getFloat();
+
+    if (bytes.length != HEADER_SIZE + 2L * sizeX * sizeY * Float.BYTES) {
+      throw new IllegalArgumentException("Invalid grid size");
+    }
+
+    GetInterpolatedMeasurementResponse grid = new GetInterpolatedMeasurementResponse();
+    grid.initGrid(null, tileResolution, minCoordinates,
+        new Coordinates(minCoordinates.getX() + (sizeX - 1) * tileResolution,
+            minCoordinates.getY() + (sizeY - 1) * tileResolution, 0f), sizeX, sizeY);
+    grid.setDataReceived((flags & DATA_RECEIVED) != 0);
+
+    buffer.asFloatBuffer().get(grid.getDataRates()).get(grid.getLatencies());
+
+    return grid;
+  }
+
+  public static String encodeBase64(float[] values) {
+    ByteBuffer buffer =
+        ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    buffer.asFloatBuffer().put(values);
+
+    return Base64.getEncoder().encodeToString(buffer.array());
+  }
+
+  public static float[] decodeBase64(String values) {
+    ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(values))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    float[] result = new float[buffer.remaining() / Float.BYTES];
+
+    buffer.asFloatBuffer().get(result);
+
+    return result;
+  }
+}
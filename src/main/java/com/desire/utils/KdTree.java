@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.utils;
+
+/**
+ * <p>
+ * Static two-dimensional k-d tree for k-nearest-neighbour queries.
+ * </p>
+ *
+ * <p>
+ * The tree is stored implicitly in arrays: the point at the middle of each range splits it, with
+ * the lower half on the left and the upper half on the right. Queries do not allocate and may be
+ * run concurrently.
+ * </p>
+ */
+public final class KdTree {
+
+  private final float[] xs;
+  private final float[] ys;
+  private final int[] indexes;
+
+  /**
+   * @param x X coordinates of the points
+   * @param y Y coordinates of the points, same length as {@code x}
+   */
+  public KdTree(float[] x, float[] y) {
+    int size = x.length;
+
+    indexes = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      indexes[i] = i;
+    }
+
+    build(x, y, 0, size, 0);
+
+    xs = new float[size];
+    ys = new float[size];
+
+    for (int i = 0; i < size; i++) {
+      xs[i] = x[indexes[i]];
+      ys[i] = y[indexes[i]];
+    }
+  }
+
+  public int size() {
+    return indexes.length;
+  }
+
+  /**
+   * Finds the nearest points of the given location, sorted by ascending distance.
+   *
+   * @param neighbours Receives the indexes of the nearest points in the input arrays
+   * @param squaredDistances Receives the squared distances of the nearest points, same length as
+   *        {@code neighbours}
+   * @return Number of points found, at most the length of {@code neighbours}
+   */
+  public int nearest(float x, float y, int[] neighbours, float[] squaredDistances) {
+    return search(x, y, 0, indexes.length, 0, neighbours, squaredDistances, 0);
+  }
+
+  private int search(float x, float y, int from, int to, int depth, int[] neighbours,
+      float[] squaredDistances, int count) {
+    if (from >= to) {
+      return count;
+    }
+
+    int middle = (from + to) >>> 1;
+    float dx = x - xs[middle];
+    float dy = y - ys[middle];
+
+    count = offer(indexes[middle], dx * dx + dy * dy, neighbours, squaredDistances, count);
+
+    float difference = depth % 2 == 0 ? dx : dy;
+
+    // Search the side of the location first, the other side only if it may contain nearer points.
+    if (difference < 0) {
+      count = search(x, y, from, middle, depth + 1, neighbours, squaredDistances, count);
+
+      if (count < neighbours.length || difference * difference < squaredDistances[count - 1]) {
+        count = search(x, y, middle + 1, to, depth + 1, neighbours, squaredDistances, count);
+      }
+    } else {
+      count = search(x, y, middle + 1, to, depth + 1, neighbours, squaredDistances, count);
+
+      if (count < neighbours.length || difference * difference < squaredDistances[count - 1]) {
+        count = search(x, y, from, middle, depth + 1, neighbours, squaredDistances, count);
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Inserts the point into the sorted neighbours if it is nearer than the farthest one.
+   */
+  private static int offer(int index, float squaredDistance, int[] neighbours,
+      float[] squaredDistances, int count) {
+    if (count == neighbours.length) {
+      if (squaredDistance >= squaredDistances[count - 1]) {
+        return count;
+      }
+
+      count--;
+    }
+
+    int i = count;
+
+    while (i > 0 && squaredDistances[i - 1] > squaredDistance) {
+      neighbours[i] = neighbours[i - 1];
+      squaredDistances[i] = squaredDistances[i - 1];
+      i--;
+    }
+
+    neighbours[i] = index;
+    squaredDistances[i] = squaredDistance;
+
+    return count + 1;
+  }
+
+  private void build(float[] x, float[] y, int from, int to, int depth) {
+    if (to - from <= 1) {
+      return;
+    }
+
+    int middle = (from + to) >>> 1;
+
+    select(depth % 2 == 0 ? x : y, from, to - 1, middle);
+
+    build(x, y, from, middle, depth + 1);
+    build(x, y, middle + 1, to, depth + 1);
+  }
+
+  /**
+   * Partially sorts the indexes within {@code [left, right]} by the given coordinates, so the
+   * index at {@code k} is the one of a fully sorted range.
+   */
+  private void select(float[] coordinates, int left, int right, int k) {
+    while (left < right) {
+      float pivot = coordinates[indexes[(left + right) >>> 1]];
+      int i = left;
+      int j = right;
+
+      while (i <= j) {
+        while (coordinates[indexes[i]] < pivot) {
+          i++;
+        }
+
+        while (coordinates[indexes[j]] > pivot) {
+          j--;
+        }
+
+        if (i <= j) {
+          int swap = indexes[i];
+          indexes[i] = indexes[j];
+          indexes[j] = swap;
+          i++;
+          j--;
+        }
+      }
+
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+}
@@ -294,8 +294,9 @@ class AGVControllerTest extends BaseMvcTest {
     ResultActions resultActions = mockMvc
         .perform(MockMvcRequestBuilders.get(AGV.PATH + AGV.COMMANDS_STREAM).with(agvUser.get()))
         .andExpect(MockMvcResultMatchers.request().asyncStarted());
-    String jsonStreamResponse = resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-        .andDo(MockMvcResultHandlers.print()).andReturn().getResponse().getContentAsString();
+    MvcResult streamResult = awaitFrames(resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 2);
+    String jsonStreamResponse = streamResult.getResponse().getContentAsString();
 
     // skip heartbeat message and get the latest command
     String lastCommandJson = jsonStreamResponse.split("\n")[1];
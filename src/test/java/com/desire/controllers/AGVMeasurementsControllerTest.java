@@ -16,19 +16,38 @@
 
 package com.desire.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.desire.constants.Endpoints;
+import com.desire.constants.MediaTypes;
 import com.desire.constants.Roles;
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.dtos.GetMeasurementTileStatsResponse;
+import com.desire.dtos.HeatmapDeltaDto;
+import com.desire.dtos.PostAGVMeasurementBatchResponse;
 import com.desire.dtos.PostAGVMeasurementRequest;
 import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
-import com.desire.model.entities.AGVMeasurements;
+import com.desire.dtos.PostAGVMeasurementResponse;
+import com.desire.events.HeatmapStreamService;
+import com.desire.model.entities.AGVMeasurementTiles;
 import com.desire.model.entities.Campaigns;
 import com.desire.model.entities.Campaigns.Configuration;
 import com.desire.model.entities.Organizations;
+import com.desire.model.entities.Sites;
+import com.desire.model.repositories.AGVMeasurementTileRepository;
+import com.desire.model.repositories.CampaignRepository;
+import com.desire.model.repositories.SiteRepository;
+import com.desire.services.AGVMeasurementTileService;
+import com.desire.services.AGVMeasurementWatermarkService;
 import com.desire.types.CampaignState;
 import com.desire.utils.BaseMvcTest;
 import com.desire.utils.FakeUser;
+import com.desire.utils.InterpolatedGridCodec;
 import com.desire.validations.codes.SystemErrorCodes;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -36,14 +55,34 @@ import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 class AGVMeasurementsControllerTest extends BaseMvcTest {
 
+  @Autowired
+  private AGVMeasurementWatermarkService watermarkService;
+
+  @Autowired
+  private HeatmapStreamService heatmapStreamService;
+
+  @Autowired
+  private CampaignRepository campaignDao;
+
+  @Autowired
+  private AGVMeasurementTileService measurementTileService;
+
+  @Autowired
+  private AGVMeasurementTileRepository tileDao;
+
+  @Autowired
+  private SiteRepository siteDao;
+
   private FakeUser user;
   private Campaigns campaign;
 
@@ -71,9 +110,10 @@ class AGVMeasurementsControllerTest extends BaseMvcTest {
                 .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
         .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
 
-    List<AGVMeasurements> measurements = parseList(result, AGVMeasurements.class);
+    PostAGVMeasurementResponse response = parse(result, PostAGVMeasurementResponse.class);
 
-    assertFalse(measurements.isEmpty());
+    assertEquals(1, response.getInserted());
+    assertFalse(response.getMeasurements().isEmpty());
   }
 
   @Test
@@ -126,13 +166,14 @@ class AGVMeasurementsControllerTest extends BaseMvcTest {
         .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
         .andReturn();
 
-    List<AGVMeasurements> measurements = parseList(result, AGVMeasurements.class);
+    PostAGVMeasurementResponse response = parse(result, PostAGVMeasurementResponse.class);
 
-    assertFalse(measurements.isEmpty());
+    assertEquals(2, response.getInserted());
+    assertFalse(response.getMeasurements().isEmpty());
   }
 
   @Test
-  void testPostMeasurementsFailDuplicateData() throws Exception {
+  void testPostMeasurementsSkipDuplicateData() throws Exception {
     PostAGVMeasurementRequest request = createRequest();
 
     MvcResult result = mockMvc.perform(
@@ -141,17 +182,238 @@ class AGVMeasurementsControllerTest extends BaseMvcTest {
                 .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
         .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
 
-    List<AGVMeasurements> measurements = parseList(result, AGVMeasurements.class);
+    PostAGVMeasurementResponse response = parse(result, PostAGVMeasurementResponse.class);
 
-    assertFalse(measurements.isEmpty());
+    assertEquals(1, response.getInserted());
+    assertEquals(0, response.getSkipped());
 
-    mockMvc.perform(MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
-            .with(user.get()).content(om.writeValueAsString(request))
-            .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
-        .andExpect(MockMvcResultMatchers.status().isBadRequest())
-        .andExpect(MockMvcResultMatchers.jsonPath("$.errors", Matchers.hasSize(1))).andExpect(
-            MockMvcResultMatchers.jsonPath("$.errors[*].code")
-                .value(Matchers.hasItem(SystemErrorCodes.VALIDATION_ERROR.toString())));
+    // Post the stored measurement again together with a new one, duplicated within the request.
+    PostAGVMeasurementValueRequest newValue = createRequest().getValues().get(0);
+    newValue.setMeasurementId(2L);
+
+    request.setValues(List.of(request.getValues().get(0), newValue, newValue));
+
+    result = mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    response = parse(result, PostAGVMeasurementResponse.class);
+
+    assertEquals(1, response.getInserted());
+    assertEquals(2, response.getSkipped());
+    assertEquals(2L, response.getMeasurements().get(0).getMeasurementId());
+  }
+
+  @Test
+  void testPostMeasurementsAdvanceWatermark() throws Exception {
+    assertTrue(watermarkService.get(campaign.getId()).isEmpty());
+
+    PostAGVMeasurementRequest request = createRequest();
+    request.getValues().get(0).setMeasurementId(42L);
+
+    mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+    assertEquals(42L, watermarkService.get(campaign.getId()).getAsLong());
+  }
+
+  @Test
+  void testPostMeasurementsAccumulateTiles() throws Exception {
+    PostAGVMeasurementRequest request = createRequest();
+
+    PostAGVMeasurementValueRequest secondValue = createRequest().getValues().get(0);
+    secondValue.setMeasurementId(2L);
+    secondValue.setLocationX(1.5f);
+    secondValue.setLocationY(2.5f);
+    secondValue.setDataRate(70f);
+    secondValue.setLatency(7f);
+
+    request.setValues(List.of(request.getValues().get(0), secondValue));
+
+    // Posting twice must not count the stored measurements again.
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(
+              MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                  .with(user.get()).content(om.writeValueAsString(request))
+                  .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+          .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.TILE_STATS,
+                campaign.getId()).with(user.get())).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    GetMeasurementTileStatsResponse response = parse(result, GetMeasurementTileStatsResponse.class);
+
+    assertEquals(1, response.getTiles().size());
+
+    AGVMeasurementTiles tile = response.getTiles().get(0);
+
+    assertEquals(2, tile.getDataRate().getCount());
+    assertEquals(50d, tile.getDataRate().getMin());
+    assertEquals(70d, tile.getDataRate().getMax());
+    assertEquals(60d, tile.getDataRate().getMean());
+    assertEquals(100d, tile.getDataRate().getVariance(), 0.001);
+    assertEquals(12d, tile.getLatency().getSum(), 0.001);
+  }
+
+  @Test
+  void testRebuildMeasurementTiles() throws Exception {
+    PostAGVMeasurementRequest request = createRequest();
+
+    PostAGVMeasurementValueRequest invalidValue = createRequest().getValues().get(0);
+    invalidValue.setMeasurementId(2L);
+    invalidValue.setLocationZ(-100f);
+
+    request.setValues(List.of(request.getValues().get(0), invalidValue));
+
+    mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+    // Measurements with invalid z values are not added to the tiles.
+    assertEquals(1, getTileStats().getTiles().get(0).getDataRate().getCount());
+
+    // Tiles missing measurements, e.g. stored before tiles existed.
+    tileDao.deleteAll(tileDao.findByCampaignIdAndResolution(campaign.getId(), 1f));
+    measurementTileService.markForRebuild(List.of(campaign.getId()));
+
+    assertTrue(measurementTileService.findCampaignIdsToRebuild().contains(campaign.getId()));
+
+    // Measurements stored while the rebuild is claimed are added once it completes.
+    assertFalse(measurementTileService.rebuild(campaign.getId(), Duration.ofHours(1)));
+
+    PostAGVMeasurementRequest deferredRequest = createRequest();
+    deferredRequest.getValues().get(0).setMeasurementId(3L);
+    postMeasurements(deferredRequest);
+
+    assertTrue(getTileStats().getTiles().isEmpty());
+
+    assertTrue(measurementTileService.rebuild(campaign.getId(), Duration.ZERO));
+
+    assertFalse(measurementTileService.findCampaignIdsToRebuild().contains(campaign.getId()));
+
+    GetMeasurementTileStatsResponse response = getTileStats();
+
+    assertEquals(1, response.getTiles().size());
+    assertEquals(2, response.getTiles().get(0).getDataRate().getCount());
+    assertEquals(50d, response.getTiles().get(0).getDataRate().getMean());
+
+    // Tiles are rebuilt when the resolution of the site changes.
+    Sites site = siteDao.findById(campaign.getSite().getId()).get();
+    site.setMapTileResolution(2f);
+    siteDao.save(site);
+
+    try {
+      assertTrue(measurementTileService.findCampaignIdsToRebuild().contains(campaign.getId()));
+      assertTrue(measurementTileService.rebuild(campaign.getId(), Duration.ZERO));
+
+      response = getTileStats();
+
+      assertEquals(2f, response.getTileResolution());
+      assertEquals(2, response.getTiles().get(0).getDataRate().getCount());
+    } finally {
+      site.setMapTileResolution(1f);
+      siteDao.save(site);
+    }
+  }
+
+  private void postMeasurements(PostAGVMeasurementRequest request) throws Exception {
+    mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk());
+  }
+
+  @Test
+  void testPostMeasurementsRegenerateHeatmapTiles() throws Exception {
+    PostAGVMeasurementRequest request = createRequest();
+
+    mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+    // Cell (1, 2) of the finest level, values are ordered by x first.
+    GetInterpolatedMeasurementResponse tile = getHeatmapTile(5);
+
+    assertTrue(tile.isDataReceived());
+    assertEquals(50f, tile.getDataRates()[64 + 2]);
+    assertTrue(Float.isNaN(tile.getDataRates()[0]));
+
+    request.getValues().get(0).setMeasurementId(2L);
+    request.getValues().get(0).setDataRate(70f);
+
+    mockMvc.perform(
+            MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                .with(user.get()).content(om.writeValueAsString(request))
+                .contentType(MediaType.APPLICATION_JSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk());
+
+    assertEquals(60f, getHeatmapTile(5).getDataRates()[64 + 2]);
+    assertEquals(60f, getHeatmapTile(0).getDataRates()[0]);
+  }
+
+  @Test
+  void testGetHeatmapTileFailInvalidZoom() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.HEATMAP_TILES, campaign.getId(), 6,
+                0, 0).with(user.get())).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isBadRequest());
+  }
+
+  @Test
+  void testPostMeasurementsStreamHeatmapChanges() throws Exception {
+    ResultActions resultActions = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.HEATMAP_STREAM, campaign.getId())
+            .with(user.get()))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted());
+
+    PostAGVMeasurementRequest request = createRequest();
+
+    for (int i = 0; i < 2; i++) {
+      request.getValues().get(0).setMeasurementId(i + 1L);
+      request.getValues().get(0).setDataRate(50f + i * 20f);
+
+      mockMvc.perform(
+              MockMvcRequestBuilders.post(com.desire.constants.Endpoints.AGVMeasurements.PATH)
+                  .with(user.get()).content(om.writeValueAsString(request))
+                  .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    heatmapStreamService.flush();
+
+    MvcResult result = resultActions.andReturn();
+
+    // Wait for the frame of both measurements, then filter out heartbeat messages.
+    awaitContent(result, "\"count\":2");
+
+    List<HeatmapDeltaDto> deltas = parseFromStream(result, HeatmapDeltaDto.class).stream()
+        .filter(delta -> delta.getCampaignId() != null).toList();
+
+    assertFalse(deltas.isEmpty());
+
+    // Changes are coalesced, the latest frame holds the current aggregate of the changed cell.
+    HeatmapDeltaDto delta = deltas.get(deltas.size() - 1);
+
+    assertEquals(campaign.getId(), delta.getCampaignId());
+    assertEquals(1, delta.getCells().size());
+    assertEquals(1L, delta.getCells().get(0).tileX());
+    assertEquals(2L, delta.getCells().get(0).tileY());
+    assertEquals(2L, delta.getCells().get(0).count());
+    assertEquals(60d, delta.getCells().get(0).dataRate());
   }
 
   @Test
@@ -187,6 +449,118 @@ class AGVMeasurementsControllerTest extends BaseMvcTest {
                 .value(Matchers.hasItem(SystemErrorCodes.VALIDATION_ERROR.toString())));
   }
 
+  @Test
+  void testPostMeasurementsStream() throws Exception {
+    PostAGVMeasurementValueRequest validValue = createRequest().getValues().get(0);
+
+    PostAGVMeasurementValueRequest secondValidValue = createRequest().getValues().get(0);
+    secondValidValue.setMeasurementId(2L);
+
+    PostAGVMeasurementValueRequest invalidValue = createRequest().getValues().get(0);
+    invalidValue.setMeasurementId(3L);
+    invalidValue.setAgvId(UUID.randomUUID().toString());
+
+    String requestString = String.join("\n", om.writeValueAsString(validValue),
+        om.writeValueAsString(secondValidValue), om.writeValueAsString(invalidValue));
+
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+            .post(Endpoints.AGVMeasurements.PATH + Endpoints.AGVMeasurements.STREAM)
+            .param("campaignId", campaign.getId()).with(user.get()).content(requestString)
+            .contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+    result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn();
+
+    List<PostAGVMeasurementBatchResponse> acknowledgements =
+        parseFromStream(result, PostAGVMeasurementBatchResponse.class);
+
+    assertEquals(1, acknowledgements.size());
+    assertEquals(3, acknowledgements.get(0).getReceived());
+    assertEquals(2, acknowledgements.get(0).getInserted());
+    assertEquals(1, acknowledgements.get(0).getRejected());
+  }
+
+  @Test
+  void testPostMeasurementsStreamFailInvalidCampaign() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders
+            .post(Endpoints.AGVMeasurements.PATH + Endpoints.AGVMeasurements.STREAM)
+            .param("campaignId", UUID.randomUUID().toString()).with(user.get())
+            .content(om.writeValueAsString(createRequest().getValues().get(0)))
+            .contentType(MediaType.APPLICATION_NDJSON)).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isBadRequest()).andExpect(
+            MockMvcResultMatchers.jsonPath("$.errors[*].code")
+                .value(Matchers.hasItem(SystemErrorCodes.RESOURCE_NOT_FOUND.toString())));
+  }
+
+  @Test
+  void testPostMeasurementsStreamCompletedCampaign() throws Exception {
+    // Backlogs of the TUI are ingested after their campaign completed.
+    campaign.setState(CampaignState.COMPLETED);
+    campaign = campaignDao.save(campaign);
+
+    List<PostAGVMeasurementBatchResponse> acknowledgements =
+        postMeasurementsStream(om.writeValueAsString(createRequest().getValues().get(0)));
+
+    assertEquals(1, acknowledgements.size());
+    assertEquals(1, acknowledgements.get(0).getInserted());
+  }
+
+  @Test
+  void testPostMeasurementsStreamMalformedRow() throws Exception {
+    PostAGVMeasurementValueRequest validValue = createRequest().getValues().get(0);
+
+    PostAGVMeasurementValueRequest unreadValue = createRequest().getValues().get(0);
+    unreadValue.setMeasurementId(2L);
+
+    String requestString = String.join("\n", om.writeValueAsString(validValue), "{\"agvId\": x}",
+        om.writeValueAsString(unreadValue));
+
+    List<PostAGVMeasurementBatchResponse> acknowledgements = postMeasurementsStream(requestString);
+
+    // Rows before the malformed row are written, followed by an acknowledgement of the failure.
+    assertEquals(2, acknowledgements.size());
+    assertEquals(1, acknowledgements.get(0).getInserted());
+    assertNull(acknowledgements.get(0).getFailedRow());
+    assertEquals(0, acknowledgements.get(1).getReceived());
+    assertEquals(2, acknowledgements.get(1).getFailedRow());
+    assertEquals(1, acknowledgements.get(1).getErrors().size());
+  }
+
+  private List<PostAGVMeasurementBatchResponse> postMeasurementsStream(String requestString)
+      throws Exception {
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+            .post(Endpoints.AGVMeasurements.PATH + Endpoints.AGVMeasurements.STREAM)
+            .param("campaignId", campaign.getId()).with(user.get()).content(requestString)
+            .contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+    result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn();
+
+    return parseFromStream(result, PostAGVMeasurementBatchResponse.class);
+  }
+
+  private GetInterpolatedMeasurementResponse getHeatmapTile(int zoom) throws Exception {
+    MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+            .get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.HEATMAP_TILES, campaign.getId(),
+                zoom, 0, 0).with(user.get()).accept(MediaTypes.GRID))
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    return InterpolatedGridCodec.decode(result.getResponse().getContentAsByteArray());
+  }
+
+  private GetMeasurementTileStatsResponse getTileStats() throws Exception {
+    MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.TILE_STATS,
+                campaign.getId()).with(user.get())).andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    return parse(result, GetMeasurementTileStatsResponse.class);
+  }
+
   private PostAGVMeasurementRequest createRequest() {
     PostAGVMeasurementRequest request = new PostAGVMeasurementRequest();
     request.setCampaignId(campaign.getId());
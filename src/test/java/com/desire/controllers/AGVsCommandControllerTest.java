@@ -184,7 +184,7 @@ class AGVsCommandControllerTest extends BaseMvcTest {
         .andExpect(MockMvcResultMatchers.status().isOk()).andDo(MockMvcResultHandlers.print())
         .andReturn();
 
-    AGVCommands resumeStreamCommand = parseResumeStreamAgvCommand(result);
+    AGVCommands resumeStreamCommand = parseResumeStreamAgvCommand(awaitFrames(result, 2));
 
     assertEquals(command2.getId(), resumeStreamCommand.getId());
   }
@@ -23,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.List;
 import java.util.UUID;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -30,6 +31,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
@@ -39,6 +41,8 @@ import com.desire.constants.Roles;
 import com.desire.dtos.AGVDto;
 import com.desire.dtos.AGVUpdateDto;
 import com.desire.dtos.SearchAGVRequest.Fields;
+import com.desire.events.AGVStreamService;
+import com.desire.model.entities.AGVPositions;
 import com.desire.model.entities.Campaigns;
 import com.desire.model.entities.Campaigns.Configuration;
 import com.desire.model.entities.Organizations;
@@ -51,6 +55,7 @@ import com.desire.utils.BaseMvcTest;
 import com.desire.utils.FakeUser;
 import com.desire.utils.Pagination;
 import com.desire.utils.TestDataService;
+import com.desire.validations.codes.SystemErrorCodes;
 
 class AGVsControllerTest extends BaseMvcTest {
 
@@ -60,6 +65,9 @@ class AGVsControllerTest extends BaseMvcTest {
   @Autowired
   private TestDataService testDataService;
 
+  @Autowired
+  private AGVStreamService agvStreamService;
+
   private FakeUser agvUser1;
 
   private FakeUser agvUser2;
@@ -296,4 +304,122 @@ class AGVsControllerTest extends BaseMvcTest {
     assertNull(updates.get(0).getPosition());
     assertNull(updates.get(0).getStatus());
   }
+
+  @Test
+  void testGetStreamReactive() throws Exception {
+    MvcResult result = getStreamReactive(null);
+
+    AGVPositions position = new AGVPositions();
+    position.setAgvId(agvUser1.getKeycloakId());
+
+    agvStreamService.publish(agvUser1.getKeycloakId(), new AGVUpdateDto(position));
+
+    String content = awaitContent(result, position.getId());
+
+    assertTrue(content.contains("data:{\"dateTime\""));
+    assertTrue(content.contains("\"agvId\":\"" + agvUser1.getKeycloakId() + "\""));
+  }
+
+  @Test
+  void testGetStreamReactiveReplay() throws Exception {
+    MvcResult result = getStreamReactive(null);
+
+    AGVPositions firstPosition = new AGVPositions();
+    AGVPositions secondPosition = new AGVPositions();
+
+    agvStreamService.publish(agvUser1.getKeycloakId(), new AGVUpdateDto(firstPosition));
+    agvStreamService.publish(agvUser1.getKeycloakId(), new AGVUpdateDto(secondPosition));
+
+    String content = awaitContent(result, secondPosition.getId());
+
+    // Event IDs precede the data of their events.
+    String firstEvent = content.substring(0, content.indexOf(firstPosition.getId()));
+    String lastEventId =
+        firstEvent.substring(firstEvent.lastIndexOf("id:") + 3, firstEvent.lastIndexOf("\n"));
+
+    // Reconnect after the first event.
+    content = awaitContent(getStreamReactive(Long.valueOf(lastEventId.trim())),
+        secondPosition.getId());
+
+    assertFalse(content.contains(firstPosition.getId()));
+  }
+
+  @Test
+  void testGetStreamReactiveSnapshot() throws Exception {
+    // Unknown event IDs, e.g. of a previous run, result in a snapshot of the latest state.
+    String content = awaitContent(getStreamReactive(1L), "\"position\":{");
+
+    assertTrue(content.contains("\"status\":{"));
+  }
+
+  @Test
+  void testGetSiteStreamReactive() throws Exception {
+    MvcResult result = mockMvc
+        .perform(MockMvcRequestBuilders.get(Endpoints.V2.PATH + Endpoints.V2.SITE_AGVS_STREAM)
+            .param("siteId", site.getId()).with(operatorUser.get()))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+    AGVPositions otherPosition = new AGVPositions();
+    AGVPositions position = new AGVPositions();
+
+    // Only the first AGV belongs to the site.
+    agvStreamService.publish(agvUser2.getKeycloakId(), new AGVUpdateDto(otherPosition));
+    agvStreamService.publish(agvUser1.getKeycloakId(), new AGVUpdateDto(position));
+
+    String content = awaitContent(result, position.getId());
+
+    assertTrue(content
+        .contains("data:{\"agvId\":\"" + agvUser1.getKeycloakId() + "\",\"update\":{"));
+    assertFalse(content.contains(otherPosition.getId()));
+  }
+
+  @Test
+  void testGetSiteStreamReactiveOtherOrganization() throws Exception {
+    MvcResult result = getSiteStreamReactive(operatorUser);
+
+    // Viewers of other organizations see none of the AGVs and do not change the viewed AGVs.
+    FakeUser otherOperatorUser = FakeUser.builder().organizationId(UUID.randomUUID().toString())
+        .roles(List.of(Roles.OPERATOR)).build();
+    MvcResult otherResult = getSiteStreamReactive(otherOperatorUser);
+
+    AGVPositions position = new AGVPositions();
+
+    agvStreamService.publish(agvUser1.getKeycloakId(), new AGVUpdateDto(position));
+
+    awaitContent(result, position.getId());
+
+    assertFalse(otherResult.getResponse().getContentAsString().contains(position.getId()));
+  }
+
+  @Test
+  void testGetSiteStreamReactiveFailCampaignNotFound() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(Endpoints.V2.PATH + Endpoints.V2.SITE_AGVS_STREAM)
+            .param("siteId", site.getId()).param("campaignId", UUID.randomUUID().toString())
+            .with(operatorUser.get()))
+        .andDo(MockMvcResultHandlers.print())
+        .andExpect(MockMvcResultMatchers.status().isBadRequest()).andExpect(
+            MockMvcResultMatchers.jsonPath("$.errors[*].code")
+                .value(Matchers.hasItem(SystemErrorCodes.RESOURCE_NOT_FOUND.toString())));
+  }
+
+  private MvcResult getSiteStreamReactive(FakeUser user) throws Exception {
+    return mockMvc
+        .perform(MockMvcRequestBuilders.get(Endpoints.V2.PATH + Endpoints.V2.SITE_AGVS_STREAM)
+            .param("siteId", site.getId()).with(user.get()))
+        .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+  }
+
+  private MvcResult getStreamReactive(Long lastEventId) throws Exception {
+    MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+        .get(Endpoints.V2.PATH + Endpoints.V2.AGVS_STREAM, agvUser1.getKeycloakId())
+        .with(operatorUser.get());
+
+    if (lastEventId != null) {
+      request.header("Last-Event-ID", lastEventId);
+    }
+
+    return mockMvc.perform(request).andExpect(MockMvcResultMatchers.request().asyncStarted())
+        .andReturn();
+  }
 }
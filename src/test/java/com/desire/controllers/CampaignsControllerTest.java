@@ -16,6 +16,7 @@
 
 package com.desire.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -27,28 +28,50 @@ import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import com.desire.constants.Endpoints;
+import com.desire.constants.MediaTypes;
 import com.desire.constants.Roles;
+import com.desire.dtos.GetInterpolatedMeasurementGridResponse;
+import com.desire.dtos.GetInterpolatedMeasurementResponse;
+import com.desire.dtos.GetInterpolatedMeasurementValueResponse;
 import com.desire.dtos.PatchCampaignRequest;
 import com.desire.dtos.PostCampaignRequest;
 import com.desire.dtos.SearchCampaignRequest.Fields;
+import com.desire.model.entities.AGVMeasurements;
 import com.desire.model.entities.Campaigns;
 import com.desire.model.entities.Campaigns.Configuration;
+import com.desire.model.entities.Coordinates;
 import com.desire.model.entities.Organizations;
 import com.desire.model.entities.Sites;
+import com.desire.model.repositories.AGVMeasurementRepository;
+import com.desire.services.AGVMeasurementWatermarkService;
+import com.desire.services.InterpolatedMeasurementsCacheService;
+import com.desire.services.InterpolatedMeasurementsCacheService.Statistics;
 import com.desire.types.CampaignState;
+import com.desire.types.InterpolationEngine;
 import com.desire.utils.BaseMvcTest;
 import com.desire.utils.FakeUser;
+import com.desire.utils.InterpolatedGridCodec;
 import com.desire.validations.codes.SystemErrorCodes;
 import com.fasterxml.jackson.databind.JsonNode;
 
 class CampaignsControllerTest extends BaseMvcTest {
 
+  @Autowired
+  private AGVMeasurementRepository measurementDao;
+
+  @Autowired
+  private AGVMeasurementWatermarkService watermarkService;
+
+  @Autowired
+  private InterpolatedMeasurementsCacheService cacheService;
+
   private Organizations organization;
 
   private FakeUser user;
@@ -355,6 +378,127 @@ class CampaignsControllerTest extends BaseMvcTest {
     updateCampaign(campaign.getId(), null, CampaignState.ABORTED);
   }
 
+  /**
+   * Success: Interpolate measurements by inverse-distance weighting within the backend.
+   */
+  @Test
+  void testGetInterpolatedMeasurementsLocal() throws Exception {
+    Campaigns campaign = testDataService.getOrCreateCampaign(UUID.randomUUID().toString(),
+        CampaignState.RUNNING, testDataService.getOrCreateSite("Test site", organization));
+
+    measurementDao.insert(createMeasurement(campaign, 1, 0f, 10f, 1f));
+    measurementDao.insert(createMeasurement(campaign, 2, 2f, 30f, 3f));
+
+    // Neither invalid measurements nor measurements far outside of the grid are weighted.
+    AGVMeasurements invalid = createMeasurement(campaign, 3, 1f, 90f, 9f);
+    invalid.getCoordinates().setZ(-200f);
+    measurementDao.insert(invalid);
+    measurementDao.insert(createMeasurement(campaign, 4, 1000f, 90f, 9f));
+
+    GetInterpolatedMeasurementResponse response = getInterpolatedMeasurementsLocal(campaign);
+
+    assertTrue(response.isDataReceived());
+    assertEquals(InterpolationEngine.LOCAL, response.getEngine());
+    assertEquals(3, response.getValues().size());
+
+    // Exact values at the measurements, the mean between them.
+    List<Float> dataRates =
+        response.getValues().stream().map(GetInterpolatedMeasurementValueResponse::getDatarate)
+            .toList();
+
+    assertEquals(List.of(10f, 20f, 30f), dataRates);
+    assertEquals(2f, response.getValues().get(1).getLatency(), 0.001f);
+  }
+
+  /**
+   * Success: Return cached grids until new measurements of the campaign are stored.
+   */
+  @Test
+  void testGetInterpolatedMeasurementsCached() throws Exception {
+    Campaigns campaign = testDataService.getOrCreateCampaign(UUID.randomUUID().toString(),
+        CampaignState.RUNNING, testDataService.getOrCreateSite("Test site", organization));
+
+    measurementDao.insert(createMeasurement(campaign, 1, 0f, 10f, 1f));
+    measurementDao.insert(createMeasurement(campaign, 2, 2f, 30f, 3f));
+
+    Statistics statistics = cacheService.getStatistics();
+
+    getInterpolatedMeasurementsLocal(campaign);
+    GetInterpolatedMeasurementResponse response = getInterpolatedMeasurementsLocal(campaign);
+
+    assertEquals(statistics.hits() + 1, cacheService.getStatistics().hits());
+    assertEquals(20f, response.getValues().get(1).getDatarate());
+
+    // Storing a measurement advances the watermark, so the cached grid is outdated.
+    measurementDao.insert(createMeasurement(campaign, 3, 1f, 50f, 5f));
+    watermarkService.advance(campaign.getId(), 3);
+
+    response = getInterpolatedMeasurementsLocal(campaign);
+
+    assertEquals(statistics.hits() + 1, cacheService.getStatistics().hits());
+    assertEquals(50f, response.getValues().get(1).getDatarate());
+  }
+
+  /**
+   * Success: Get interpolated measurements in the columnar binary and JSON formats.
+   */
+  @Test
+  void testGetInterpolatedMeasurementsGrid() throws Exception {
+    Campaigns campaign = testDataService.getOrCreateCampaign(UUID.randomUUID().toString(),
+        CampaignState.RUNNING, testDataService.getOrCreateSite("Test site", organization));
+
+    measurementDao.insert(createMeasurement(campaign, 1, 0f, 10f, 1f));
+    measurementDao.insert(createMeasurement(campaign, 2, 2f, 30f, 3f));
+
+    MvcResult result = getInterpolatedMeasurementsLocal(campaign, MediaTypes.GRID);
+
+    GetInterpolatedMeasurementResponse grid =
+        InterpolatedGridCodec.decode(result.getResponse().getContentAsByteArray());
+
+    assertTrue(grid.isDataReceived());
+    assertEquals(3, grid.getSizeX());
+    assertEquals(1, grid.getSizeY());
+    assertArrayEquals(new float[] {10f, 20f, 30f}, grid.getDataRates());
+    assertArrayEquals(new float[] {1f, 2f, 3f}, grid.getLatencies(), 0.001f);
+
+    result = getInterpolatedMeasurementsLocal(campaign, MediaTypes.GRID_JSON);
+
+    GetInterpolatedMeasurementGridResponse gridJson =
+        parse(result, GetInterpolatedMeasurementGridResponse.class);
+
+    assertEquals(3, gridJson.getSizeX());
+    assertArrayEquals(new float[] {10f, 20f, 30f},
+        InterpolatedGridCodec.decodeBase64(gridJson.getDataRates()));
+  }
+
+  private GetInterpolatedMeasurementResponse getInterpolatedMeasurementsLocal(Campaigns campaign)
+      throws Exception {
+    return parse(getInterpolatedMeasurementsLocal(campaign, MediaType.APPLICATION_JSON_VALUE),
+        GetInterpolatedMeasurementResponse.class);
+  }
+
+  private MvcResult getInterpolatedMeasurementsLocal(Campaigns campaign, String mediaType)
+      throws Exception {
+    return mockMvc.perform(MockMvcRequestBuilders
+            .get(Endpoints.Campaigns.PATH + Endpoints.Campaigns.INTERPOLATED_MEASUREMENTS,
+                campaign.getId()).with(user.get()).accept(mediaType)
+            .param("engine", InterpolationEngine.LOCAL.name()).param("tileResolution", "1")
+            .param("minX", "0").param("minY", "0").param("maxX", "2").param("maxY", "0"))
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+  }
+
+  private AGVMeasurements createMeasurement(Campaigns campaign, long measurementId, float x,
+      float dataRate, float latency) {
+    AGVMeasurements measurement = new AGVMeasurements();
+    measurement.setCampaign(campaign);
+    measurement.setMeasurementId(measurementId);
+    measurement.setCoordinates(new Coordinates(x, 0f, 0f));
+    measurement.setDataRate(dataRate);
+    measurement.setLatency(latency);
+
+    return measurement;
+  }
+
   private Campaigns createCampaign(String name, CampaignState state,
       List<Configuration> configurations, Sites site) throws Exception {
     PostCampaignRequest postRequest = new PostCampaignRequest();
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.indexes.IndexedQueries;
+import com.desire.services.MongoIndexService;
+import com.desire.services.MongoIndexService.QueryPlan;
+import com.desire.services.TimeSeriesCollectionService;
+import com.desire.tasks.IndexDeduplicationTask;
+import com.desire.utils.BaseMvcTest;
+import com.mongodb.client.MongoCollection;
+
+class MongoIndexTest extends BaseMvcTest {
+
+  private static final String INDEX_NAME = "campaign._id_1_measurementId_-1";
+
+  @Autowired
+  private MongoIndexService mongoIndexService;
+
+  @Autowired
+  private IndexDeduplicationTask indexDeduplicationTask;
+
+  @Autowired
+  private TimeSeriesCollectionService timeSeriesCollectionService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Test
+  void testNoCollectionScans() {
+    mongoIndexService.ensureIndexes();
+
+    List<QueryPlan> plans = mongoIndexService.explain();
+
+    assertEquals(IndexedQueries.ALL.size(), plans.size());
+
+    for (QueryPlan plan : plans) {
+      assertFalse(plan.collectionScan(), "Query " + plan.name() + " uses a collection scan");
+    }
+  }
+
+  @Test
+  void testKeepIndexWithDuplicates() {
+    // Time-series collections do not support unique indexes.
+    assumeFalse(timeSeriesCollectionService.isTimeSeries(AGVMeasurements.class));
+
+    String campaignId = UUID.randomUUID().toString();
+
+    insertDuplicates(campaignId);
+
+    mongoIndexService.ensureIndexes();
+
+    // Nothing is deleted, the index stays without unique constraint.
+    assertEquals(2, getMeasurements().countDocuments(new Document("campaign._id", campaignId)));
+    assertFalse(isUnique());
+  }
+
+  @Test
+  void testRemoveDuplicates() {
+    assumeFalse(timeSeriesCollectionService.isTimeSeries(AGVMeasurements.class));
+
+    String campaignId = UUID.randomUUID().toString();
+    String latestId = insertDuplicates(campaignId);
+
+    // Dry runs only report duplicates.
+    assertTrue(indexDeduplicationTask.deduplicate(true) > 0);
+    assertEquals(2, getMeasurements().countDocuments(new Document("campaign._id", campaignId)));
+
+    assertTrue(indexDeduplicationTask.deduplicate(false) > 0);
+
+    List<Document> remaining = getMeasurements().find(new Document("campaign._id", campaignId))
+        .into(new ArrayList<>());
+
+    assertEquals(1, remaining.size());
+    assertEquals(latestId, remaining.get(0).getString("_id"));
+    assertTrue(isUnique());
+  }
+
+  /**
+   * Recreates the index and duplicates of a version without unique constraint.
+   *
+   * @return ID of the latest duplicate.
+   */
+  private String insertDuplicates(String campaignId) {
+    MongoCollection<Document> measurements = getMeasurements();
+
+    mongoIndexService.ensureIndexes();
+
+    measurements.dropIndex(INDEX_NAME);
+    measurements.createIndex(new Document("campaign._id", 1).append("measurementId", -1));
+
+    String latestId = null;
+
+    for (int i = 0; i < 2; i++) {
+      latestId = UUID.randomUUID().toString();
+
+      measurements.insertOne(new Document("_id", latestId)
+          .append("campaign", new Document("_id", campaignId)).append("measurementId", 1L)
+          .append("createMoment", new Date(System.currentTimeMillis() + i * 1000L)));
+    }
+
+    return latestId;
+  }
+
+  private boolean isUnique() {
+    return getMeasurements().listIndexes().into(new ArrayList<>()).stream()
+        .anyMatch(index -> INDEX_NAME.equals(index.getString("name"))
+            && Boolean.TRUE.equals(index.getBoolean("unique")));
+  }
+
+  private MongoCollection<Document> getMeasurements() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(AGVMeasurements.class));
+  }
+}
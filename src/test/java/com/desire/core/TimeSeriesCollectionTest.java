@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import com.desire.constants.Endpoints;
+import com.desire.constants.Roles;
+import com.desire.dtos.PostAGVMeasurementRequest;
+import com.desire.dtos.PostAGVMeasurementRequest.PostAGVMeasurementValueRequest;
+import com.desire.dtos.SearchAGVMeasurementRequest.Fields;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Campaigns.Configuration;
+import com.desire.model.entities.MobileMeasurements;
+import com.desire.model.entities.Organizations;
+import com.desire.services.TimeSeriesCollectionService;
+import com.desire.types.CampaignState;
+import com.desire.utils.BaseMvcTest;
+import com.desire.utils.FakeUser;
+
+@TestPropertySource(properties = "app.storage.time-series-measurements=true")
+class TimeSeriesCollectionTest extends BaseMvcTest {
+
+  @Autowired
+  private TimeSeriesCollectionService timeSeriesCollectionService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Test
+  void testTimeSeriesMeasurements() throws Exception {
+    assertTrue(timeSeriesCollectionService.isTimeSeries(AGVMeasurements.class));
+    assertTrue(timeSeriesCollectionService.isTimeSeries(MobileMeasurements.class));
+
+    Organizations organization = testDataService.getOrCreateOrganization("Test Org.");
+    FakeUser user = FakeUser.builder().organizationId(organization.getId())
+        .roles(List.of(Roles.ADMIN)).build();
+
+    Configuration configuration = new Configuration();
+    configuration.setOrchestratorId("orchestrator-1");
+    configuration.setEndpointId("endpoint-1");
+    configuration.setClientId("client-1");
+    configuration.setAgvId(UUID.randomUUID().toString());
+
+    Campaigns campaign = testDataService.createCampaign("Time-series test", CampaignState.RUNNING,
+        testDataService.getOrCreateSite("Test site", organization), configuration);
+
+    PostAGVMeasurementValueRequest valueRequest = new PostAGVMeasurementValueRequest();
+    valueRequest.setMeasurementId(1L);
+    valueRequest.setAgvId(configuration.getAgvId());
+    valueRequest.setClientId(configuration.getClientId());
+    valueRequest.setEndpointId(configuration.getEndpointId());
+    valueRequest.setCampaignId(campaign.getId());
+    valueRequest.setMeasureMoment(ZonedDateTime.now());
+    valueRequest.setLatency(5f);
+    valueRequest.setDataRate(50f);
+    valueRequest.setLocationX(1f);
+    valueRequest.setLocationY(2f);
+    valueRequest.setLocationZ(3f);
+
+    PostAGVMeasurementRequest request = new PostAGVMeasurementRequest();
+    request.setCampaignId(campaign.getId());
+    request.setValues(List.of(valueRequest));
+
+    mockMvc
+        .perform(MockMvcRequestBuilders.post(Endpoints.AGVMeasurements.PATH).with(user.get())
+            .content(om.writeValueAsString(request)).contentType(MediaType.APPLICATION_JSON))
+        .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk());
+
+    MvcResult result = mockMvc
+        .perform(MockMvcRequestBuilders.get(Endpoints.AGVMeasurements.PATH).with(user.get())
+            .param(Fields.campaignId, campaign.getId())
+            .param(Fields.from, LocalDateTime.now().minusHours(1).toString()))
+        .andDo(MockMvcResultHandlers.print()).andExpect(MockMvcResultMatchers.status().isOk())
+        .andReturn();
+
+    List<AGVMeasurements> measurements = parseSearchList(result, AGVMeasurements.class);
+
+    assertEquals(1, measurements.size());
+    assertEquals(1L, measurements.get(0).getMeasurementId());
+
+    // The meta field only holds IDs.
+    Document stored = mongoTemplate.getCollection(mongoTemplate.getCollectionName(
+        AGVMeasurements.class)).find(new Document("meta.campaignId", campaign.getId())).first();
+
+    assertNotNull(stored);
+    assertEquals(
+        new Document("campaignId", campaign.getId()).append("siteId", campaign.getSite().getId())
+            .append("organizationId", organization.getId())
+            .append("agvId", configuration.getAgvId()),
+        stored.get(TimeSeriesCollectionService.META_FIELD, Document.class));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import com.desire.events.TestStreamService.SlowEmitter;
+import com.desire.types.StreamOverflowPolicy;
+import com.desire.utils.BaseMvcTest;
+
+/**
+ * Publishes events to a /v1 subscriber whose client blocks the sending stream thread.
+ */
+@TestPropertySource(properties = "app.streams.executor.threads=2")
+class StreamOverflowTest extends BaseMvcTest {
+
+  private static final String KEY = "test";
+  private static final int QUEUE_SIZE = 4;
+  private static final int EVENTS = 10;
+
+  @Autowired
+  private StreamExecutor streamExecutor;
+
+  @Autowired
+  private StreamClusterService streamCluster;
+
+  private final CountDownLatch sending = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  void releaseClient() {
+    release.countDown();
+  }
+
+  @Test
+  void testDropOldest() throws Exception {
+    SlowEmitter emitter = publishBlocked(StreamOverflowPolicy.DROP_OLDEST);
+
+    release.countDown();
+
+    // The first event was already being sent, the oldest of the queued ones were dropped.
+    assertEquals(List.of("\"0\"", "\"6\"", "\"7\"", "\"8\"", "\"9\""), awaitFrames(emitter, 5));
+  }
+
+  @Test
+  void testCoalesce() throws Exception {
+    SlowEmitter emitter = publishBlocked(StreamOverflowPolicy.COALESCE);
+
+    release.countDown();
+
+    // Each overflow cleared the queue, only the latest event is left.
+    assertEquals(List.of("\"0\"", "\"9\""), awaitFrames(emitter, 2));
+  }
+
+  @Test
+  void testDisconnect() throws Exception {
+    TestStreamService streamService = createStreamService(StreamOverflowPolicy.DISCONNECT);
+    SlowEmitter emitter = publishBlocked(streamService);
+
+    // The first overflow closed the stream while its client was still blocked.
+    assertTrue(emitter.isCompleted());
+    assertFalse(streamService.isSubscribed(KEY));
+
+    release.countDown();
+
+    assertEquals(List.of("\"0\""), awaitFrames(emitter, 1));
+  }
+
+  private SlowEmitter publishBlocked(StreamOverflowPolicy overflowPolicy) throws Exception {
+    return publishBlocked(createStreamService(overflowPolicy));
+  }
+
+  /**
+   * Publishes the first event, waits until the client blocks on it and publishes the others.
+   */
+  private SlowEmitter publishBlocked(TestStreamService streamService) throws Exception {
+    SlowEmitter emitter = new SlowEmitter(() -> {
+      sending.countDown();
+      release.await();
+    });
+
+    streamService.subscribe(KEY, emitter);
+    streamService.publish(KEY, "0");
+
+    assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+    // Publishing returns although the client blocks the sending thread.
+    assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+      for (int i = 1; i < EVENTS; i++) {
+        streamService.publish(KEY, String.valueOf(i));
+      }
+    });
+
+    return emitter;
+  }
+
+  private TestStreamService createStreamService(StreamOverflowPolicy overflowPolicy) {
+    return new TestStreamService(om, streamExecutor, streamCluster, QUEUE_SIZE, overflowPolicy);
+  }
+
+  private List<String> awaitFrames(SlowEmitter emitter, int count) throws InterruptedException {
+    for (int i = 0; i < 50 && emitter.getFrames().size() < count; i++) {
+      Thread.sleep(100);
+    }
+
+    return emitter.getFrames();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.events;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import com.desire.types.StreamOverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+/**
+ * Stream of strings whose subscribers are added with their own emitters, so tests control how fast
+ * the frames are sent. Frames are drained by the real {@link StreamExecutor}.
+ */
+public class TestStreamService extends EventStreamService<String, String> {
+
+  private final StreamOverflowPolicy overflowPolicy;
+
+  public TestStreamService(ObjectMapper objectMapper, StreamExecutor streamExecutor,
+      StreamClusterService streamCluster, int queueSize, StreamOverflowPolicy overflowPolicy) {
+    this.objectMapper = objectMapper;
+    this.streamExecutor = streamExecutor;
+    this.streamCluster = streamCluster;
+    this.overflowPolicy = overflowPolicy;
+
+    ReflectionTestUtils.setField(this, "queueSize", queueSize);
+
+    setBeanName("test-" + UUID.randomUUID());
+    init();
+  }
+
+  @Override
+  public StreamOverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Adds a subscriber of the key sending to the given emitter.
+   */
+  public void subscribe(String key, ResponseBodyEmitter emitter) {
+    streams.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>())
+        .add(new Subscriber(key, emitter));
+  }
+
+  /**
+   * @return Whether the key has subscribers on this instance.
+   */
+  public boolean isSubscribed(String key) {
+    return streams.containsKey(key);
+  }
+
+  /**
+   * Client running a hook before each frame, e.g. to block or delay the sending thread.
+   */
+  public static class SlowEmitter extends ResponseBodyEmitter {
+
+    /**
+     * Hook run on the sending thread before a frame is sent.
+     */
+    public interface Hook {
+
+      void run() throws InterruptedException;
+    }
+
+    private final Hook hook;
+
+    /**
+     * Sent frames without the trailing new line.
+     */
+    @Getter
+    private final List<String> frames = new CopyOnWriteArrayList<>();
+
+    @Getter
+    private volatile boolean completed;
+
+    public SlowEmitter(Hook hook) {
+      this.hook = hook;
+    }
+
+    @Override
+    public void send(Object object) throws IOException {
+      try {
+        hook.run();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+
+        throw new IOException("Sending interrupted", e);
+      }
+
+      frames.add(new String((byte[]) object, StandardCharsets.UTF_8).trim());
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+
+      super.complete();
+    }
+  }
+}
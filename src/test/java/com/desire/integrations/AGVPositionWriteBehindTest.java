@@ -0,0 +1,77 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.integrations;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import com.desire.constants.Roles;
+import com.desire.model.entities.AGVPositions;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.entities.Campaigns.Configuration;
+import com.desire.model.entities.Organizations;
+import com.desire.model.entities.Sites;
+import com.desire.model.repositories.AGVPositionRepository;
+import com.desire.model.repositories.CampaignRepository;
+import com.desire.services.AGVPositionWriteBehindService;
+import com.desire.types.CampaignState;
+import com.desire.utils.BaseMvcTest;
+import com.desire.utils.FakeUser;
+
+@TestPropertySource(properties = {"app.agv-positions.write-behind.enabled=true",
+    "app.agv-positions.write-behind.max-delay-ms=60000"})
+class AGVPositionWriteBehindTest extends BaseMvcTest {
+
+  @Autowired
+  private AGVPositionRepository positionDao;
+
+  @Autowired
+  private AGVPositionWriteBehindService writeBehindService;
+
+  @Autowired
+  private CampaignRepository campaignDao;
+
+  @Test
+  void testWriteBehind() throws Exception {
+    Organizations organization = testDataService.getOrCreateOrganization("Test Org.");
+    Sites site = testDataService.getOrCreateSite("Test site", organization);
+
+    FakeUser agvUser = FakeUser.builder().organizationId(organization.getId())
+        .siteId(site.getId()).keycloakId(UUID.randomUUID().toString()).roles(List.of(Roles.AGV))
+        .build();
+
+    Campaigns campaign = testDataService.getOrCreateCampaign("TEST-" + UUID.randomUUID(),
+        CampaignState.RUNNING, site);
+
+    Configuration configuration = new Configuration();
+    configuration.setAgvId(agvUser.getKeycloakId());
+    campaign.setConfigurations(List.of(configuration));
+    campaign = campaignDao.save(campaign);
+
+    mockKeycloakUser(agvUser);
+
+    AGVPositions position = postAgvPosition(campaign, agvUser);
+
+    writeBehindService.flushScheduled();
+
+    assertTrue(positionDao.findById(position.getId()).isPresent());
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.integrations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import com.desire.dtos.AGVUpdateDto;
+import com.desire.events.AGVStreamService;
+import com.desire.model.entities.AGVMeasurements;
+import com.desire.model.entities.AGVPositions;
+import com.desire.model.entities.AGVStatusEvents;
+import com.desire.types.AGVStatusEventType;
+import com.desire.utils.BaseMvcTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@TestPropertySource(properties = {"app.streams.agv.coalesce.enabled=true",
+    "app.streams.agv.coalesce.window-ms=250"})
+class AGVUpdateCoalescingTest extends BaseMvcTest {
+
+  @Autowired
+  private AGVStreamService agvStreamService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  void testCoalesceUpdates() throws Exception {
+    String agvId = UUID.randomUUID().toString();
+
+    CompletableFuture<List<String>> received = agvStreamService.subscribeReactive(agvId)
+        .filter(event -> event.id() != null).map(event -> event.data())
+        .take(Duration.ofSeconds(2)).collectList().toFuture();
+
+    AGVStatusEvents online = new AGVStatusEvents();
+    online.setEventType(AGVStatusEventType.ONLINE);
+
+    AGVStatusEvents shutdown = new AGVStatusEvents();
+    shutdown.setEventType(AGVStatusEventType.SHUTDOWN);
+
+    AGVPositions position = new AGVPositions();
+    position.setAgvId(agvId);
+
+    // Published within a single window.
+    agvStreamService.publish(agvId, new AGVUpdateDto(online));
+    agvStreamService.publish(agvId, new AGVUpdateDto(List.of(new AGVMeasurements())));
+    agvStreamService.publish(agvId, new AGVUpdateDto(position));
+    agvStreamService.publish(agvId, new AGVUpdateDto(List.of(new AGVMeasurements())));
+    agvStreamService.publish(agvId, new AGVUpdateDto(shutdown));
+
+    List<String> events = received.get(10, TimeUnit.SECONDS);
+
+    assertEquals(1, events.size());
+
+    AGVUpdateDto update = objectMapper.readValue(events.get(0), AGVUpdateDto.class);
+
+    assertNotNull(update.getPosition());
+    assertEquals(AGVStatusEventType.SHUTDOWN, update.getStatus().getEventType());
+    assertEquals(2, update.getMeasurements().size());
+  }
+}
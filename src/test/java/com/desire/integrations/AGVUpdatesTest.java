@@ -25,9 +25,9 @@ import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
-import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import com.desire.constants.Endpoints.AGVs;
 import com.desire.constants.Roles;
@@ -119,10 +119,12 @@ class AGVUpdatesTest extends BaseMvcTest {
 
     postAgvStatusEvent(AGVStatusEventType.SHUTDOWN, null, agvUser);
 
-    // Get results and filter out heartbeat messages.
-    List<AGVUpdateDto> updates =
-        parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-            .andDo(MockMvcResultHandlers.print()).andReturn(), AGVUpdateDto.class);
+    // Wait for the last update, then get results and filter out heartbeat messages.
+    MvcResult result = resultActions.andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    awaitContent(result, AGVStatusEventType.SHUTDOWN.name());
+
+    List<AGVUpdateDto> updates = parseFromStream(result, AGVUpdateDto.class);
 
     updates = updates.stream()
         .filter(update -> update.getPosition() != null || update.getStatus() != null).toList();
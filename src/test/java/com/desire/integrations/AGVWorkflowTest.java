@@ -186,8 +186,8 @@ class AGVWorkflowTest extends BaseMvcTest {
         AGVCommandState.COMPLETED);
 
     List<AGVCommands> streamCommands =
-        parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-            .andDo(MockMvcResultHandlers.print()).andReturn(), AGVCommands.class);
+        parseFromStream(awaitFrames(resultActions
+            .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 8), AGVCommands.class);
 
     assertEquals(8, streamCommands.size());
     validateAgvCommand(streamCommands.get(1), AGVCommandType.START_CAMPAIGN, AGVCommandState.SENT);
@@ -228,8 +228,8 @@ class AGVWorkflowTest extends BaseMvcTest {
     postAgvStatusEvent(AGVStatusEventType.COMPLETE_REQUEST, secondGoToCommand, agvUser);
 
     List<AGVCommands> streamCommands =
-        parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-            .andDo(MockMvcResultHandlers.print()).andReturn(), AGVCommands.class);
+        parseFromStream(awaitFrames(resultActions
+            .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 4), AGVCommands.class);
 
     // Validate that a RESUME_CAMPAIGN command was published after the second GO_TO command.
     assertEquals(4, streamCommands.size());
@@ -262,8 +262,8 @@ class AGVWorkflowTest extends BaseMvcTest {
     patchCampaign(CampaignState.ABORTED);
 
     List<AGVCommands> streamCommands =
-        parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-            .andDo(MockMvcResultHandlers.print()).andReturn(), AGVCommands.class);
+        parseFromStream(awaitFrames(resultActions
+            .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 4), AGVCommands.class);
 
     // Validate that a RESUME_CAMPAIGN command is not sent and we get ABORT_CAMPAIGN instead
     assertEquals(4, streamCommands.size());
@@ -296,8 +296,8 @@ class AGVWorkflowTest extends BaseMvcTest {
     patchCampaign(CampaignState.COMPLETED);
 
     List<AGVCommands> streamCommands =
-        parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-            .andDo(MockMvcResultHandlers.print()).andReturn(), AGVCommands.class);
+        parseFromStream(awaitFrames(resultActions
+            .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 4), AGVCommands.class);
 
     // Validate that a RESUME_CAMPAIGN command is not sent and we get ABORT_CAMPAIGN instead
     assertEquals(4, streamCommands.size());
@@ -360,8 +360,8 @@ class AGVWorkflowTest extends BaseMvcTest {
         .perform(MockMvcRequestBuilders.get(AGV.PATH + AGV.COMMANDS_STREAM).with(agvUser.get()))
         .andExpect(MockMvcResultMatchers.request().asyncStarted());
 
-    List<AGVCommands> streamCommands = parseFromStream(resultActions.andExpect(MockMvcResultMatchers.status().isOk())
-        .andDo(MockMvcResultHandlers.print()).andReturn(), AGVCommands.class);
+    List<AGVCommands> streamCommands = parseFromStream(awaitFrames(resultActions
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn(), 2), AGVCommands.class);
 
     // ensure the first message is not a heartbeat but the command we previously sent
     assertEquals(2, streamCommands.size());
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.integrations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.TestPropertySource;
+import com.desire.dtos.AGVUpdateDto;
+import com.desire.events.AGVStreamService;
+import com.desire.events.StreamClusterService;
+import com.desire.model.entities.AGVPositions;
+import com.desire.utils.BaseMvcTest;
+
+@TestPropertySource(properties = "app.streams.cluster.enabled=true")
+class StreamClusterTest extends BaseMvcTest {
+
+  @Autowired
+  private AGVStreamService agvStreamService;
+
+  @Autowired
+  private StreamClusterService streamClusterService;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Test
+  void testDeliverEventsOfOtherInstances() throws Exception {
+    String agvId = UUID.randomUUID().toString();
+
+    CompletableFuture<ServerSentEvent<String>> received = agvStreamService
+        .subscribeReactive(agvId).filter(event -> event.id() != null).next().toFuture();
+
+    String event = "{\"position\":{\"agvId\":\"" + agvId + "\"}}";
+
+    mongoTemplate.getCollection(StreamClusterService.COLLECTION)
+        .insertOne(new Document("node", UUID.randomUUID().toString())
+            .append("stream", "AGVStreamService").append("key", agvId).append("event", event)
+            .append("createMoment", LocalDateTime.now()));
+
+    assertEquals(event, received.get(10, TimeUnit.SECONDS).data());
+  }
+
+  @Test
+  void testBroadcastPublishedEvents() throws Exception {
+    String agvId = UUID.randomUUID().toString();
+    String otherAgvId = UUID.randomUUID().toString();
+
+    // Subscribed on another instance only.
+    mongoTemplate.getCollection(StreamClusterService.SUBSCRIPTIONS_COLLECTION)
+        .insertOne(new Document("_id", UUID.randomUUID().toString())
+            .append("streams", new Document("AGVStreamService", List.of(agvId)))
+            .append("updateMoment", LocalDateTime.now()));
+
+    streamClusterService.syncSubscriptions();
+
+    AGVPositions otherPosition = new AGVPositions();
+    otherPosition.setAgvId(otherAgvId);
+
+    AGVPositions position = new AGVPositions();
+    position.setAgvId(agvId);
+
+    agvStreamService.publish(otherAgvId, new AGVUpdateDto(otherPosition));
+    agvStreamService.publish(agvId, new AGVUpdateDto(position));
+
+    Document document = null;
+
+    for (int i = 0; i < 50 && document == null; i++) {
+      Thread.sleep(100);
+      document = mongoTemplate.getCollection(StreamClusterService.COLLECTION)
+          .find(new Document("key", agvId)).first();
+    }
+
+    assertNotNull(document);
+    assertEquals("AGVStreamService", document.getString("stream"));
+
+    // Events are written in order, so the event without subscribers would have been written.
+    assertNull(mongoTemplate.getCollection(StreamClusterService.COLLECTION)
+        .find(new Document("key", otherAgvId)).first());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.integrations;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.Mockito;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.desire.events.StreamClusterService;
+import com.desire.events.StreamExecutor;
+import com.desire.events.TestStreamService;
+import com.desire.events.TestStreamService.SlowEmitter;
+import com.desire.types.StreamOverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Compares platform and virtual threads of the {@link StreamExecutor} for many /v1 stream
+ * subscribers behind slow clients. Events are published and drained through the real subscriber
+ * queues of an event stream service, only the emitters delay each frame.
+ * </p>
+ *
+ * <p>
+ * The platform executor uses the default number of stream threads. Run with
+ * {@code mvn test -Dtest=VirtualThreadBenchmarkTest -Dbenchmark=true} on Java 21.
+ * </p>
+ */
+@Slf4j
+@EnabledForJreRange(min = JRE.JAVA_21)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmarkTest {
+
+  private static final String KEY = "benchmark";
+
+  private static final int THREADS = 8;
+  private static final int SUBSCRIBERS = 500;
+  private static final int FRAMES = 10;
+  private static final Duration FRAME_WRITE = Duration.ofMillis(20);
+
+  private record Result(long streamMillis, long maxPublishMicros) {
+
+  }
+
+  @Test
+  void benchmarkPlatformAndVirtualThreads() throws Exception {
+    Result platform = run(false);
+    Result virtual = run(true);
+
+    log.info("Threads  | {} streams x {} frames | slowest publish", SUBSCRIBERS, FRAMES);
+    log.info("platform | {} ms | {} us", platform.streamMillis(), platform.maxPublishMicros());
+    log.info("virtual  | {} ms | {} us", virtual.streamMillis(), virtual.maxPublishMicros());
+  }
+
+  private Result run(boolean virtualThreads) throws InterruptedException {
+    StreamExecutor streamExecutor = new StreamExecutor(new MockEnvironment()
+        .withProperty("spring.threads.virtual.enabled", String.valueOf(virtualThreads)));
+    ReflectionTestUtils.setField(streamExecutor, "threads", THREADS);
+    ReflectionTestUtils.setField(streamExecutor, "queueCapacity", 10000);
+    streamExecutor.init();
+
+    // Queues hold all frames, so none are dropped.
+    TestStreamService streamService = new TestStreamService(new ObjectMapper(), streamExecutor,
+        Mockito.mock(StreamClusterService.class), FRAMES, StreamOverflowPolicy.DROP_OLDEST);
+
+    CountDownLatch sent = new CountDownLatch(SUBSCRIBERS * FRAMES);
+
+    // Each subscriber blocks its sending thread while writing to a slow client.
+    for (int i = 0; i < SUBSCRIBERS; i++) {
+      streamService.subscribe(KEY, new SlowEmitter(() -> {
+        Thread.sleep(FRAME_WRITE.toMillis());
+        sent.countDown();
+      }));
+    }
+
+    try {
+      long start = System.nanoTime();
+      long maxPublish = 0;
+
+      for (int frame = 0; frame < FRAMES; frame++) {
+        long publishStart = System.nanoTime();
+
+        streamService.publish(KEY, "frame-" + frame);
+
+        maxPublish = Math.max(maxPublish, System.nanoTime() - publishStart);
+      }
+
+      assertTrue(sent.await(5, TimeUnit.MINUTES));
+
+      return new Result(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+          TimeUnit.NANOSECONDS.toMicros(maxPublish));
+    } finally {
+      streamExecutor.shutdown();
+    }
+  }
+}
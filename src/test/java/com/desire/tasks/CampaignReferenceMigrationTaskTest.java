@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.desire.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.UUID;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.TestPropertySource;
+import com.desire.model.entities.AGVCommands;
+import com.desire.model.entities.Campaigns;
+import com.desire.model.repositories.AGVCommandRepository;
+import com.desire.types.AGVCommandType;
+import com.desire.types.CampaignState;
+import com.desire.utils.BaseMvcTest;
+
+@TestPropertySource(properties = "app.storage.slim-campaign-references=true")
+class CampaignReferenceMigrationTaskTest extends BaseMvcTest {
+
+  @Autowired
+  private AGVCommandRepository agvCommandDao;
+
+  @Autowired
+  private CampaignReferenceMigrationTask migrationTask;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Test
+  void testSlimReferences() {
+    Campaigns campaign = testDataService.getOrCreateCampaign("Slim reference test",
+        CampaignState.RUNNING, testDataService.getOrCreateSite("Test site",
+            testDataService.getOrCreateOrganization("Test Org.")));
+
+    AGVCommands command = testDataService.createAGVCommand(UUID.randomUUID().toString(),
+        AGVCommandType.GO_TO, campaign);
+
+    Document storedCampaign = findCommandDocument(command.getId()).get("campaign", Document.class);
+
+    assertEquals(campaign.getId(), storedCampaign.get("_id"));
+    assertFalse(storedCampaign.containsKey(Campaigns.Fields.name));
+    assertEquals(campaign.getSite().getOrganization().getId(),
+        storedCampaign.getEmbedded(List.of("site", "organization", "_id"), String.class));
+
+    assertTrue(agvCommandDao.findById(command.getId()).isPresent());
+    assertEquals(campaign.getName(),
+        agvCommandDao.findById(command.getId()).get().getCampaign().getName());
+  }
+
+  @Test
+  void testMigration() {
+    Campaigns campaign = testDataService.getOrCreateCampaign("Slim reference migration test",
+        CampaignState.RUNNING, testDataService.getOrCreateSite("Test site",
+            testDataService.getOrCreateOrganization("Test Org.")));
+
+    AGVCommands command = new AGVCommands();
+    command.setAgvId(UUID.randomUUID().toString());
+    command.setType(AGVCommandType.GO_TO);
+    command.setCampaign(campaign);
+
+    // Write the command with an embedded campaign without invoking entity callbacks.
+    Document document = new Document();
+    mongoTemplate.getConverter().write(command, document);
+    mongoTemplate.getCollection(mongoTemplate.getCollectionName(AGVCommands.class))
+        .insertOne(document);
+
+    assertTrue(findCommandDocument(command.getId()).get("campaign", Document.class)
+        .containsKey(Campaigns.Fields.name));
+
+    migrationTask.migrate();
+
+    Document storedCampaign = findCommandDocument(command.getId()).get("campaign", Document.class);
+
+    assertEquals(campaign.getId(), storedCampaign.get("_id"));
+    assertFalse(storedCampaign.containsKey(Campaigns.Fields.name));
+    assertEquals(campaign.getName(),
+        agvCommandDao.findById(command.getId()).get().getCampaign().getName());
+  }
+
+  private Document findCommandDocument(String id) {
+    return mongoTemplate.findOne(Query.query(Criteria.where("_id").is(id)), Document.class,
+        mongoTemplate.getCollectionName(AGVCommands.class));
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023–2025 Nuromedia GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.desire.tui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.desire.constants.Endpoints;
+import com.desire.constants.Roles;
+import com.desire.dtos.GetInterpolatedMeasurementValueResponse;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest;
+import com.desire.dtos.GetInterpolatedMeasurementsRequest.GetInterpolatedMeasurementsGridRequest;
+import com.desire.model.entities.Organizations;
+import com.desire.utils.BaseMvcTest;
+import com.desire.utils.FakeUser;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+class TuiInterpolationTest extends BaseMvcTest {
+
+  private FakeUser user;
+
+  @BeforeEach
+  void setup() {
+    Organizations organization = testDataService.getOrCreateOrganization("Test Org.");
+
+    user = FakeUser.builder().organizationId(organization.getId()).roles(List.of(Roles.ADMIN))
+        .build();
+  }
+
+  @Test
+  void testGetInterpolatedMeasurementsGridDescriptor() throws Exception {
+    GetInterpolatedMeasurementsRequest request =
+        new GetInterpolatedMeasurementsRequest(UUID.randomUUID().toString());
+    request.setGrid(new GetInterpolatedMeasurementsGridRequest(-2f, 1f, 0.5f, 3, 4));
+
+    MvcResult result = mockMvc
+        .perform(MockMvcRequestBuilders.get("/tui" + Endpoints.TUI.INTERPOLATED_MEASUREMENTS_BULK)
+            .with(user.get()).content(om.writeValueAsString(request))
+            .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+
+    List<GetInterpolatedMeasurementValueResponse> values =
+        parseList(result, GetInterpolatedMeasurementValueResponse.class);
+
+    assertEquals(12, values.size());
+
+    for (int i = 0; i < values.size(); i++) {
+      assertEquals(request.getCampaignId(), values.get(i).getCampaignId());
+      assertEquals(-2f + (i / 4) * 0.5f, values.get(i).getX(), 1e-6);
+      assertEquals(1f + (i % 4) * 0.5f, values.get(i).getY(), 1e-6);
+    }
+  }
+}
@@ -16,6 +16,8 @@
 
 package com.desire.utils;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.lang.reflect.Field;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -25,6 +27,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.Predicate;
 import org.apache.commons.lang3.StringUtils;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.mockito.Mockito;
@@ -162,6 +165,40 @@ public abstract class BaseMvcTest {
     }
   }
 
+  /**
+   * Waits for stream content which is sent asynchronously by the stream threads.
+   *
+   * @return Content of the stream.
+   */
+  protected String awaitContent(MvcResult result, String expected) throws Exception {
+    return awaitContent(result, content -> content.contains(expected));
+  }
+
+  /**
+   * Waits until the stream sent at least the given number of frames, e.g. before parsing them with
+   * {@link #parseFromStream(MvcResult, Class)}.
+   *
+   * @return The given result.
+   */
+  protected MvcResult awaitFrames(MvcResult result, int count) throws Exception {
+    awaitContent(result, content -> StringUtils.countMatches(content, '\n') >= count);
+
+    return result;
+  }
+
+  private String awaitContent(MvcResult result, Predicate<String> condition) throws Exception {
+    String content = result.getResponse().getContentAsString();
+
+    for (int i = 0; i < 50 && !condition.test(content); i++) {
+      Thread.sleep(100);
+      content = result.getResponse().getContentAsString();
+    }
+
+    assertTrue(condition.test(content), content);
+
+    return content;
+  }
+
   protected Optional<UserRepresentation> getFakeUserRepresentation(String userId,
       String organizationId, String siteId) {
     UserRepresentation user = new UserRepresentation();